@@ -1,9 +1,14 @@
 package fuze.app;
 
 import fuze.framework.gui.MainPage;
+import fuze.framework.weatherapi.ForecastPrefetcher;
+import fuze.framework.weatherapi.WeatherMetrics;
 
 public class Main {
     public static void main(String[] args) {
+        // Background work for the whole app, not any one window
+        ForecastPrefetcher.getShared().start();
+        WeatherMetrics.getShared().publish();
         MainPage.main(args);
     }
 }
@@ -0,0 +1,303 @@
+package fuze.entity.location;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Every city there is, loaded once for the whole app. The cities live in
+ * cities.bin (made by CityGazetteerBuilder out of CitiesLongLat.csv), which
+ * is memory-mapped rather than read in: starting up is just checking the
+ * header and the cities don't take up heap, however many the file has.
+ * Looking a city up by name is a binary search over the sorted name keys
+ * in the file (both the city and city_ascii columns), the coordinates and
+ * population are read straight out of the city's record.
+ */
+public final class CityGazetteer {
+    static final String RESOURCE =
+            "fuze/entity/location/city_coordinates/cities.bin";
+    static final String CSV_RESOURCE =
+            "fuze/entity/location/city_coordinates/CitiesLongLat.csv";
+    /**
+     * Where cities.bin is copied to when it's inside a jar, since that
+     * can't be mapped.
+     */
+    private static final Path COPY = Paths.get(
+            System.getProperty("user.home"), ".fuzewardrobe", "cities.bin");
+
+    private final ByteBuffer data;
+    private final int cityCount;
+    private final int keyCount;
+    private final int keysStart;
+    // Built the first time someone asks for the closest city
+    private volatile PointIndex points;
+
+    private CityGazetteer(final ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < CityGazetteerBuilder.HEADER
+                || data.getInt(0) != CityGazetteerBuilder.MAGIC
+                || data.getInt(4) != CityGazetteerBuilder.VERSION) {
+            throw new IOException("Not a city gazetteer");
+        }
+        this.cityCount = data.getInt(8);
+        this.keyCount = data.getInt(12);
+        this.keysStart = CityGazetteerBuilder.HEADER
+                + cityCount * CityGazetteerBuilder.CITY_RECORD;
+        if (cityCount < 0 || keyCount < 0 || data.capacity() < keysStart
+                + (long) keyCount * CityGazetteerBuilder.KEY_RECORD) {
+            throw new IOException("Bad city gazetteer header");
+        }
+    }
+
+    /**
+     * @return the gazetteer bundled with the app, empty if it's missing
+     */
+    public static CityGazetteer getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * Loaded the first time anything looks up a city.
+     */
+    private static final class Holder {
+        private static final CityGazetteer DEFAULT = load();
+    }
+
+    private static CityGazetteer load() {
+        URL binary = CityGazetteer.class.getClassLoader()
+                .getResource(RESOURCE);
+        if (binary != null) {
+            try {
+                return new CityGazetteer(map(binary));
+            } catch (IOException e) {
+                System.out.println("Could not map the cities: "
+                        + e.getMessage());
+            }
+        }
+        // No (good) cities.bin, convert the CSV in memory instead
+        InputStream stream = CityGazetteer.class.getClassLoader()
+                .getResourceAsStream(CSV_RESOURCE);
+        if (stream == null) {
+            System.out.println("CitiesLongLat.csv not found");
+            return empty();
+        }
+        try (Reader reader = new InputStreamReader(stream,
+                StandardCharsets.UTF_8)) {
+            return read(reader);
+        } catch (IOException e) {
+            System.out.println("Could not read the cities: " + e.getMessage());
+            return empty();
+        }
+    }
+
+    private static CityGazetteer empty() {
+        try {
+            return read(Reader.nullReader());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Maps the file right where it is when running from the classes
+     * folder, out of a jar it's copied to COPY first (only when that copy
+     * is missing or its header, which has the version and a CRC of the
+     * rest, isn't the same as the jar's).
+     */
+    private static ByteBuffer map(final URL resource) throws IOException {
+        Path file;
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                file = Paths.get(resource.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        } else {
+            file = COPY;
+            URLConnection connection = resource.openConnection();
+            if (!Files.exists(file)
+                    || Files.size(file) != connection.getContentLengthLong()
+                    || !Arrays.equals(header(file),
+                            header(resource.openStream()))) {
+                Files.createDirectories(file.getParent());
+                Path part = Files.createTempFile(file.getParent(), "cities",
+                        ".part");
+                try (InputStream in = connection.getInputStream()) {
+                    Files.copy(in, part, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(part, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+    }
+
+    private static byte[] header(final Path file) throws IOException {
+        return header(Files.newInputStream(file));
+    }
+
+    /**
+     * @param in closed here
+     * @return the first HEADER bytes (fewer if it's shorter)
+     */
+    private static byte[] header(final InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            return stream.readNBytes(CityGazetteerBuilder.HEADER);
+        }
+    }
+
+    /**
+     * Reads a CSV with the same columns as CitiesLongLat.csv (city,
+     * city_ascii, lat, lng, ..., population in the 10th column), header
+     * line included. It's converted with CityGazetteerBuilder and kept on
+     * the heap.
+     * @param reader the CSV, not closed here
+     * @return the gazetteer, lines that don't parse are skipped
+     * @throws IOException if it can't be read
+     */
+    public static CityGazetteer read(final Reader reader) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CityGazetteerBuilder.build(reader, out);
+        return new CityGazetteer(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * @return how many cities there are
+     */
+    public int size() {
+        return cityCount;
+    }
+
+    /**
+     * @param city the name, either as in the city or city_ascii column
+     * @return its number, -1 if there's no such city
+     */
+    public int indexOf(final String city) {
+        if (city == null) {
+            return -1;
+        }
+        byte[] key = city.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = keyCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int record = keysStart + mid * CityGazetteerBuilder.KEY_RECORD;
+            int compared = compare(data.getInt(record), key);
+            if (compared < 0) {
+                lo = mid + 1;
+            } else if (compared > 0) {
+                hi = mid - 1;
+            } else {
+                return data.getInt(record + 4);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same order as the builder sorted the keys in, byte by byte (unsigned)
+     * and then shorter first.
+     */
+    private int compare(final int stored, final byte[] key) {
+        int length = data.getShort(stored) & 0xffff;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int compared = Integer.compare(
+                    Byte.toUnsignedInt(data.get(stored + 2 + i)),
+                    Byte.toUnsignedInt(key[i]));
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private int record(final int city) {
+        if (city < 0 || city >= cityCount) {
+            throw new IndexOutOfBoundsException("No city " + city);
+        }
+        return CityGazetteerBuilder.HEADER
+                + city * CityGazetteerBuilder.CITY_RECORD;
+    }
+
+    public String getName(final int city) {
+        int stored = data.getInt(record(city) + 12);
+        byte[] bytes = new byte[data.getShort(stored) & 0xffff];
+        ByteBuffer view = data.duplicate();
+        view.position(stored + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public double getLatitude(final int city) {
+        return data.getFloat(record(city));
+    }
+
+    public double getLongitude(final int city) {
+        return data.getFloat(record(city) + 4);
+    }
+
+    public long getPopulation(final int city) {
+        return data.getInt(record(city) + 8);
+    }
+
+    /**
+     * @return a k-d tree over every city, numbered the same as here
+     */
+    public PointIndex getPointIndex() {
+        PointIndex built = points;
+        if (built == null) {
+            // Building it twice at once is harmless, it never changes
+            double[] lats = new double[cityCount];
+            double[] lons = new double[cityCount];
+            for (int c = 0; c < cityCount; c++) {
+                lats[c] = getLatitude(c);
+                lons[c] = getLongitude(c);
+            }
+            built = new PointIndex(lats, lons);
+            points = built;
+        }
+        return built;
+    }
+
+    /**
+     * Reverse lookup, coordinates to a city.
+     * @param latitude lat double
+     * @param longitude lon double
+     * @param maxKm how far the city is allowed to be
+     * @return the closest city's number, -1 if none is within maxKm
+     */
+    public int nearest(final double latitude, final double longitude,
+                       final double maxKm) {
+        return getPointIndex().nearest(latitude, longitude, maxKm);
+    }
+
+    /**
+     * @return every city's name for dropdowns, a new array
+     */
+    public String[] getCityNames() {
+        String[] names = new String[cityCount];
+        for (int c = 0; c < cityCount; c++) {
+            names[c] = getName(c);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,213 @@
+package fuze.entity.location;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Turns CitiesLongLat.csv into cities.bin, the format CityGazetteer maps
+ * into memory. Run by hand whenever the CSV changes (same as
+ * ClimatologyIndexBuilder), the app only reads the CSV if the .bin is
+ * missing.
+ *
+ * Layout (big endian):
+ * - header, 20 bytes: magic, version, city count, key count and a CRC32
+ *   of everything after the header (so a copy can tell it's out of date)
+ * - a 16 byte record per city: latitude and longitude (floats),
+ *   population (int) and where its name is in the strings
+ * - an 8 byte record per name key, sorted by the key's UTF-8 bytes: where
+ *   the key is in the strings and which city it is. Keys are both the city
+ *   and city_ascii columns, if two cities share a name it goes to the more
+ *   populous one (the first of them on a tie), same as CitySearchIndex
+ *   ranks them
+ * - the strings, each a 2 byte length then UTF-8
+ */
+public final class CityGazetteerBuilder {
+    static final int MAGIC = 0x46435459;
+    static final int VERSION = 2;
+    static final int HEADER = 20;
+    static final int CITY_RECORD = 16;
+    static final int KEY_RECORD = 8;
+    private static final int POPULATION_COLUMN = 9;
+    private static final String FOLDER = "src/main/resources/fuze/entity/"
+            + "location/city_coordinates";
+
+    private CityGazetteerBuilder() {
+    }
+
+    /**
+     * @param args [cities csv] [gazetteer to write], defaults are the ones
+     *             in src/main/resources
+     * @throws IOException if either file can't be used
+     */
+    public static void main(final String[] args) throws IOException {
+        Path in = Paths.get(args.length > 0 ? args[0]
+                : FOLDER + "/CitiesLongLat.csv");
+        Path out = Paths.get(args.length > 1 ? args[1]
+                : FOLDER + "/cities.bin");
+        int cities;
+        try (Reader reader = Files.newBufferedReader(in,
+                StandardCharsets.UTF_8);
+             OutputStream writer = Files.newOutputStream(out)) {
+            cities = build(reader, writer);
+        }
+        System.out.println("Wrote " + cities + " cities to " + out);
+    }
+
+    /**
+     * @param csv same columns as CitiesLongLat.csv (city, city_ascii, lat,
+     *            lng, ..., population in the 10th column), header first
+     * @param out where the gazetteer goes, not closed here
+     * @return number of cities written, lines that don't parse are skipped
+     * @throws IOException if reading or writing fails
+     */
+    public static int build(final Reader csv, final OutputStream out)
+            throws IOException {
+        List<Float> lats = new ArrayList<>();
+        List<Float> lons = new ArrayList<>();
+        List<Integer> populations = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> keys = new LinkedHashMap<>();
+        BufferedReader lines = new BufferedReader(csv);
+        // The first line is the header
+        String line = lines.readLine();
+        while ((line = lines.readLine()) != null) {
+            // The first 4 columns are never quoted, the later ones can be
+            String[] values = line.split(",", 5);
+            if (values.length < 4) {
+                continue;
+            }
+            float lat;
+            float lon;
+            try {
+                lat = Float.parseFloat(values[2]);
+                lon = Float.parseFloat(values[3]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            int city = names.size();
+            lats.add(lat);
+            lons.add(lon);
+            populations.add(parsePopulation(values.length > 4
+                    ? values[4] : ""));
+            names.add(values[1]);
+            addKey(values[0], city, keys, populations);
+            addKey(values[1], city, keys, populations);
+        }
+
+        // Every string goes in once, names and keys share when they can
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream stringData = new DataOutputStream(strings);
+        Map<String, Integer> offsets = new LinkedHashMap<>();
+        for (String name : names) {
+            addString(name, stringData, offsets);
+        }
+        byte[][] sortedKeys = new byte[keys.size()][];
+        int k = 0;
+        for (String key : keys.keySet()) {
+            addString(key, stringData, offsets);
+            sortedKeys[k++] = key.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(sortedKeys, Arrays::compareUnsigned);
+
+        int n = names.size();
+        int stringsStart = HEADER + n * CITY_RECORD
+                + sortedKeys.length * KEY_RECORD;
+        // The body is put together first so the header can have its CRC
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(body);
+        for (int c = 0; c < n; c++) {
+            data.writeFloat(lats.get(c));
+            data.writeFloat(lons.get(c));
+            data.writeInt(populations.get(c));
+            data.writeInt(stringsStart + offsets.get(names.get(c)));
+        }
+        for (byte[] bytes : sortedKeys) {
+            String key = new String(bytes, StandardCharsets.UTF_8);
+            data.writeInt(stringsStart + offsets.get(key));
+            data.writeInt(keys.get(key));
+        }
+        strings.writeTo(data);
+        data.flush();
+        CRC32 crc = new CRC32();
+        crc.update(body.toByteArray());
+
+        DataOutputStream file = new DataOutputStream(
+                new BufferedOutputStream(out));
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.writeInt(n);
+        file.writeInt(sortedKeys.length);
+        file.writeInt((int) crc.getValue());
+        body.writeTo(file);
+        file.flush();
+        return n;
+    }
+
+    /**
+     * A name goes to the most populous city that has it.
+     */
+    private static void addKey(final String key, final int city,
+                               final Map<String, Integer> keys,
+                               final List<Integer> populations) {
+        keys.merge(key, city, (had, added) ->
+                populations.get(added) > populations.get(had) ? added : had);
+    }
+
+    private static void addString(final String value,
+                                  final DataOutputStream strings,
+                                  final Map<String, Integer> offsets)
+            throws IOException {
+        if (!offsets.containsKey(value)) {
+            offsets.put(value, strings.size());
+            // writeUTF would use Java's modified UTF-8, keys are compared as
+            // real UTF-8
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            strings.writeShort(bytes.length);
+            strings.write(bytes);
+        }
+    }
+
+    /**
+     * @param rest the columns after lng, as in the file
+     * @return the population, 0 if it's missing
+     */
+    private static int parsePopulation(final String rest) {
+        int column = 4;
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i <= rest.length(); i++) {
+            char c = i < rest.length() ? rest.charAt(i) : ',';
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                if (column == POPULATION_COLUMN) {
+                    try {
+                        double population = Double.parseDouble(
+                                rest.substring(start, i).trim());
+                        return (int) Math.min(population, Integer.MAX_VALUE);
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+                column++;
+                start = i + 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,351 @@
+package fuze.entity.location;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Type-ahead search over the CityGazetteer, for the location dropdowns.
+ * Names are normalized (lower case, no accents) and put in a prefix trie,
+ * once for the whole name and once from every word in it, so "sao" and
+ * "paulo" both find Sao Paulo. Every trie node keeps its best few cities
+ * (most people first), so a suggestion is just walking down the typed
+ * letters. When that doesn't give enough, the trie is searched again
+ * allowing a couple of typos (not in the first letter though).
+ */
+public final class CitySearchIndex {
+    /**
+     * Most suggestions suggest() gives back at once.
+     */
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}");
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-_,.]+");
+
+    private final CityGazetteer gazetteer;
+    private final Node root = new Node();
+    // Normalized name of each city
+    private final String[] normalized;
+    // Position of each city when sorted by population, lower is bigger
+    private final int[] rank;
+    private final Map<String, Integer> exact = new HashMap<>();
+
+    /**
+     * One letter of the trie. Children are in sorted arrays, not maps, since
+     * most nodes have only one or two.
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        // Cities with a name (or word) starting here, best ranked first
+        private int[] top = new int[0];
+
+        private Node child(final char key) {
+            int at = Arrays.binarySearch(keys, key);
+            return at >= 0 ? children[at] : null;
+        }
+
+        private Node addChild(final char key) {
+            int at = Arrays.binarySearch(keys, key);
+            if (at >= 0) {
+                return children[at];
+            }
+            at = -at - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1,
+                    children.length - at);
+            newKeys[at] = key;
+            newChildren[at] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+
+        /**
+         * Cities are added best ranked first, so this only appends.
+         */
+        private void addTop(final int city) {
+            int n = top.length;
+            if (n == MAX_SUGGESTIONS || (n > 0 && top[n - 1] == city)) {
+                return;
+            }
+            top = Arrays.copyOf(top, n + 1);
+            top[n] = city;
+        }
+    }
+
+    /**
+     * @return the index over the bundled cities
+     */
+    public static CitySearchIndex getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * Built the first time something searches.
+     */
+    private static final class Holder {
+        private static final CitySearchIndex DEFAULT =
+                new CitySearchIndex(CityGazetteer.getDefault());
+    }
+
+    /**
+     * @param gazetteer the cities to search
+     */
+    public CitySearchIndex(final CityGazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+        int size = gazetteer.size();
+        this.normalized = new String[size];
+        this.rank = new int[size];
+
+        Integer[] byPopulation = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            byPopulation[i] = i;
+            normalized[i] = normalize(gazetteer.getName(i));
+        }
+        Arrays.sort(byPopulation, (a, b) -> Long.compare(
+                gazetteer.getPopulation(b), gazetteer.getPopulation(a)));
+        for (int i = 0; i < size; i++) {
+            rank[byPopulation[i]] = i;
+        }
+        for (int city : byPopulation) {
+            String name = normalized[city];
+            exact.putIfAbsent(name, city);
+            root.addTop(city);
+            for (int start = 0; start < name.length(); start++) {
+                if (start == 0 || name.charAt(start - 1) == ' ') {
+                    insert(name, start, city);
+                }
+            }
+        }
+    }
+
+    private void insert(final String name, final int from, final int city) {
+        Node node = root;
+        for (int i = from; i < name.length(); i++) {
+            node = node.addChild(name.charAt(i));
+            node.addTop(city);
+        }
+    }
+
+    /**
+     * Lower case, accents dropped and spaces tidied, so "  Montréal" and
+     * "montreal" are the same.
+     * @param name what was typed, or a city name
+     * @return the name as it's kept in the trie
+     */
+    public static String normalize(final String name) {
+        if (name == null) {
+            return "";
+        }
+        String plain = isAscii(name) ? name : ACCENTS.matcher(
+                Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("")
+                .replace('’', '\'');
+        plain = plain.toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(plain).replaceAll(" ").trim();
+    }
+
+    private static boolean isAscii(final String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * How many typos a query of that length is allowed, none for the very
+     * short ones since then almost anything would match.
+     */
+    private static int maxEdits(final int length) {
+        if (length < 4) {
+            return 0;
+        }
+        return length < 8 ? 1 : 2;
+    }
+
+    /**
+     * @param prefix what's been typed so far
+     * @param k how many are wanted (at most MAX_SUGGESTIONS)
+     * @return city names that start with prefix, most people first, then
+     * close misspellings of it, best first
+     */
+    public List<String> suggest(final String prefix, final int k) {
+        int wanted = Math.min(k, MAX_SUGGESTIONS);
+        if (wanted <= 0) {
+            return List.of();
+        }
+        String query = normalize(prefix);
+        Set<Integer> found = new LinkedHashSet<>();
+        Node node = find(query);
+        if (node != null) {
+            for (int i = 0; i < node.top.length && found.size() < wanted;
+                 i++) {
+                found.add(node.top[i]);
+            }
+        }
+        if (found.size() < wanted && maxEdits(query.length()) > 0) {
+            for (int city : closest(fuzzy(query, maxEdits(query.length())))) {
+                if (found.size() == wanted) {
+                    break;
+                }
+                found.add(city);
+            }
+        }
+        List<String> names = new ArrayList<>(found.size());
+        for (int city : found) {
+            names.add(gazetteer.getName(city));
+        }
+        return names;
+    }
+
+    /**
+     * For turning whatever was typed into a city: the exact name (ignoring
+     * case and accents), or else a name that's only a typo or two off.
+     * @param name what was typed
+     * @return the city's number in the gazetteer, -1 if nothing is close
+     */
+    public int bestMatch(final String name) {
+        String query = normalize(name);
+        Integer found = exact.get(query);
+        if (found != null) {
+            return found;
+        }
+        int allowed = maxEdits(query.length());
+        if (allowed == 0) {
+            return -1;
+        }
+        int best = -1;
+        int bestDistance = allowed + 1;
+        for (int city : fuzzy(query, allowed).keySet()) {
+            int distance = distance(query, normalized[city], allowed);
+            if (distance < bestDistance || (distance == bestDistance
+                    && best >= 0 && rank[city] < rank[best])) {
+                best = city;
+                bestDistance = distance;
+            }
+        }
+        return bestDistance <= allowed ? best : -1;
+    }
+
+    private Node find(final String query) {
+        Node node = root;
+        for (int i = 0; i < query.length() && node != null; i++) {
+            node = node.child(query.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Walks the trie keeping one row of the edit distance table per letter,
+     * and stops going down once every entry in the row is over maxEdits.
+     * Only names (or words) starting with the same letter as query count.
+     * @return each city under a node whose path is within maxEdits of query,
+     * with the smallest such distance
+     */
+    private Map<Integer, Integer> fuzzy(final String query,
+                                        final int maxEdits) {
+        // One row per depth, reused, a path can't match once it's more
+        // than maxEdits longer than the query
+        int[][] rows = new int[query.length() + maxEdits + 2][];
+        for (int d = 0; d < rows.length; d++) {
+            rows[d] = new int[query.length() + 1];
+        }
+        for (int j = 0; j <= query.length(); j++) {
+            rows[0][j] = j;
+        }
+        Map<Integer, Integer> best = new HashMap<>();
+        fuzzy(root, query, rows, 0, maxEdits, best);
+        return best;
+    }
+
+    private void fuzzy(final Node node, final String query,
+                       final int[][] rows, final int depth,
+                       final int maxEdits, final Map<Integer, Integer> best) {
+        int m = query.length();
+        int[] row = rows[depth];
+        int[] next = rows[depth + 1];
+        for (int c = 0; c < node.keys.length; c++) {
+            char key = node.keys[c];
+            if (depth == 0 && key != query.charAt(0)) {
+                // The first letter has to be right, people rarely get it
+                // wrong and it cuts out most of the trie
+                continue;
+            }
+            next[0] = row[0] + 1;
+            int smallest = next[0];
+            for (int j = 1; j <= m; j++) {
+                int swap = row[j - 1] + (query.charAt(j - 1) == key ? 0 : 1);
+                next[j] = Math.min(Math.min(row[j], next[j - 1]) + 1, swap);
+                smallest = Math.min(smallest, next[j]);
+            }
+            Node child = node.children[c];
+            if (next[m] <= maxEdits) {
+                for (int city : child.top) {
+                    best.merge(city, next[m], Math::min);
+                }
+            }
+            if (smallest <= maxEdits && depth + 2 < rows.length) {
+                fuzzy(child, query, rows, depth + 1, maxEdits, best);
+            }
+        }
+    }
+
+    /**
+     * @return the cities sorted by distance, then most people
+     */
+    private List<Integer> closest(final Map<Integer, Integer> distances) {
+        List<Integer> cities = new ArrayList<>(distances.keySet());
+        Collections.sort(cities, (a, b) -> {
+            int byDistance = Integer.compare(distances.get(a),
+                    distances.get(b));
+            return byDistance != 0 ? byDistance
+                    : Integer.compare(rank[a], rank[b]);
+        });
+        return cities;
+    }
+
+    /**
+     * Plain edit distance, giving up (returning more than limit) as soon as
+     * it can't be within limit.
+     */
+    private static int distance(final String a, final String b,
+                                final int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            int smallest = row[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int above = row[j];
+                int swap = diagonal + (a.charAt(i - 1) == b.charAt(j - 1)
+                        ? 0 : 1);
+                row[j] = Math.min(Math.min(above, row[j - 1]) + 1, swap);
+                diagonal = above;
+                smallest = Math.min(smallest, row[j]);
+            }
+            if (smallest > limit) {
+                return limit + 1;
+            }
+        }
+        return row[b.length()];
+    }
+}
@@ -0,0 +1,161 @@
+package fuze.entity.location;
+
+import java.util.Objects;
+
+/**
+ * One cell of the forecast grid, used as the cache key for forecasts.
+ * Weather models only have a forecast every so many hundredths of a degree,
+ * so points close to the same grid point get (nearly) the same forecast
+ * anyway. Keying on the cell means the suburbs of a city, or the same
+ * coordinates typed in a bit differently, end up as one cache entry and
+ * one request.
+ * The tradeoff: everyone in a cell gets the forecast fetched for whoever
+ * asked first, which can be up to half a cell diagonal away. The default
+ * spacing is about the resolution of the high resolution models open-meteo
+ * picks for North America and Europe (2-3km), so that's at most ~1.5km,
+ * less than the models themselves can tell apart. Coarser grids (set with
+ * the fuze.forecast.gridDegrees system property) share more but are less
+ * exact.
+ * The grid points are at whole multiples of the spacing.
+ */
+public final class GridCell {
+    /**
+     * System property for the grid spacing, in degrees.
+     */
+    public static final String RESOLUTION_PROPERTY =
+            "fuze.forecast.gridDegrees";
+    /**
+     * About 2.5km north-south.
+     */
+    static final double DEFAULT_DEGREES = 0.025;
+    /**
+     * The caches only tell apart hundredths of a degree.
+     */
+    static final double FINEST_DEGREES = 0.01;
+
+    private static final double RESOLUTION = resolution(
+            System.getProperty(RESOLUTION_PROPERTY));
+
+    private final double degrees;
+    private final long longitudeIndex;
+    private final long latitudeIndex;
+
+    private GridCell(final double degrees, final long longitudeIndex,
+                     final long latitudeIndex) {
+        this.degrees = degrees;
+        this.longitudeIndex = longitudeIndex;
+        this.latitudeIndex = latitudeIndex;
+    }
+
+    /**
+     * @param longitude lon double
+     * @param latitude lat double
+     * @return the cell at the configured resolution
+     */
+    public static GridCell of(final double longitude, final double latitude) {
+        return of(longitude, latitude, RESOLUTION);
+    }
+
+    /**
+     * @param longitude lon double, wrapped into [-180, 180)
+     * @param latitude lat double, clamped to [-90, 90]
+     * @param degrees the grid spacing, at least FINEST_DEGREES
+     * @return the cell whose grid point is closest
+     */
+    public static GridCell of(final double longitude, final double latitude,
+                              final double degrees) {
+        if (!(degrees >= FINEST_DEGREES) || Double.isInfinite(degrees)) {
+            throw new IllegalArgumentException("Bad grid resolution: "
+                    + degrees);
+        }
+        double lon = ((longitude + 180) % 360 + 360) % 360 - 180;
+        double lat = Math.max(-90, Math.min(90, latitude));
+        long lonIndex = Math.round(lon / degrees);
+        // -180 and 180 are the same place
+        if (lonIndex * degrees >= 180) {
+            lonIndex = Math.round(-180 / degrees);
+        }
+        return new GridCell(degrees, lonIndex, Math.round(lat / degrees));
+    }
+
+    /**
+     * @return the grid spacing every cell made with of(lon, lat) uses
+     */
+    public static double getResolution() {
+        return RESOLUTION;
+    }
+
+    /**
+     * A bad or too fine setting falls back to the default.
+     */
+    static double resolution(final String setting) {
+        if (setting == null) {
+            return DEFAULT_DEGREES;
+        }
+        try {
+            double degrees = Double.parseDouble(setting.trim());
+            if (degrees >= FINEST_DEGREES && degrees <= 180) {
+                return degrees;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the message below
+        }
+        System.out.println("Ignoring " + RESOLUTION_PROPERTY + "=" + setting
+                + ", using " + DEFAULT_DEGREES);
+        return DEFAULT_DEGREES;
+    }
+
+    /**
+     * @return lon of the grid point, rounded to hundredths
+     */
+    public double getLongitude() {
+        return hundredths(longitudeIndex * degrees);
+    }
+
+    /**
+     * @return lat of the grid point, rounded to hundredths
+     */
+    public double getLatitude() {
+        return hundredths(Math.max(-90, Math.min(90,
+                latitudeIndex * degrees)));
+    }
+
+    /**
+     * Cuts off the float noise (0.30000000000000004) so grid points print
+     * and compare nicely.
+     */
+    private static double hundredths(final double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * @return the grid spacing of this cell
+     */
+    public double getDegrees() {
+        return degrees;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GridCell)) {
+            return false;
+        }
+        GridCell other = (GridCell) o;
+        return longitudeIndex == other.longitudeIndex
+                && latitudeIndex == other.latitudeIndex
+                && Double.compare(degrees, other.degrees) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(longitudeIndex, latitudeIndex, degrees);
+    }
+
+    @Override
+    public String toString() {
+        return getLatitude() + "," + getLongitude();
+    }
+}
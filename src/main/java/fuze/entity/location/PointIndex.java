@@ -0,0 +1,255 @@
+package fuze.entity.location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A k-d tree over points on the globe, for "what's the closest city to
+ * these coordinates". Points are stored as 3D unit vectors (x, y, z) rather
+ * than lat/lon, so straight-line distance always orders the same way as
+ * distance along the earth, even across the date line or near the poles.
+ * The tree is implicit: the points of a range [lo, hi) are split on the
+ * one at (lo + hi) / 2, nothing but plain arrays is allocated.
+ */
+public final class PointIndex {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    // Original point numbers, in tree order
+    private final int[] ids;
+    // Unit vector of each point, in tree order
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+
+    /**
+     * @param latitudes lat of every point
+     * @param longitudes lon of every point, same order as latitudes
+     */
+    public PointIndex(final double[] latitudes, final double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException(
+                    "Need as many longitudes as latitudes");
+        }
+        int n = latitudes.length;
+        double[][] unit = new double[3][n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(latitudes[i]);
+            double lon = Math.toRadians(longitudes[i]);
+            unit[0][i] = Math.cos(lat) * Math.cos(lon);
+            unit[1][i] = Math.cos(lat) * Math.sin(lon);
+            unit[2][i] = Math.sin(lat);
+        }
+        this.ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        build(unit, 0, n, 0);
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = unit[0][ids[i]];
+            ys[i] = unit[1][ids[i]];
+            zs[i] = unit[2][ids[i]];
+        }
+    }
+
+    /**
+     * Puts the median (on this level's axis) in the middle of [lo, hi), the
+     * smaller ones before it and the bigger ones after, then does the same
+     * for both halves.
+     */
+    private void build(final double[][] unit, final int lo, final int hi,
+                       final int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(unit[depth % 3], lo, hi - 1, mid);
+        build(unit, lo, mid, depth + 1);
+        build(unit, mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Quickselect on ids by coordinate, so ids[k] ends up where it would be
+     * if [left, right] were sorted.
+     */
+    private void select(final double[] coordinate, int left, int right,
+                        final int k) {
+        while (left < right) {
+            double pivot = coordinate[ids[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate[ids[i]] < pivot) {
+                    i++;
+                }
+                while (coordinate[ids[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = ids[i];
+                    ids[i] = ids[j];
+                    ids[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return how many points there are
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param latitude lat double
+     * @param longitude lon double
+     * @return the closest point's number, -1 if there are no points
+     */
+    public int nearest(final double latitude, final double longitude) {
+        return nearest(latitude, longitude, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @param latitude lat double
+     * @param longitude lon double
+     * @param maxKm how far the point is allowed to be
+     * @return the closest point's number, -1 if none is within maxKm
+     */
+    public int nearest(final double latitude, final double longitude,
+                       final double maxKm) {
+        double[] query = unitVector(latitude, longitude);
+        // best[0] is the squared chord to beat, best[1] where it is
+        double[] best = {chordSquared(maxKm), -1};
+        nearest(query, 0, ids.length, 0, best);
+        return best[1] < 0 ? -1 : ids[(int) best[1]];
+    }
+
+    private void nearest(final double[] query, final int lo, final int hi,
+                         final int depth, final double[] best) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double d2 = squaredChord(query, mid);
+        if (d2 <= best[0]) {
+            best[0] = d2;
+            best[1] = mid;
+        }
+        double diff = query[depth % 3] - coordinate(depth % 3, mid);
+        if (diff < 0) {
+            nearest(query, lo, mid, depth + 1, best);
+            if (diff * diff <= best[0]) {
+                nearest(query, mid + 1, hi, depth + 1, best);
+            }
+        } else {
+            nearest(query, mid + 1, hi, depth + 1, best);
+            if (diff * diff <= best[0]) {
+                nearest(query, lo, mid, depth + 1, best);
+            }
+        }
+    }
+
+    /**
+     * @param latitude lat double
+     * @param longitude lon double
+     * @param km the radius
+     * @return the numbers of every point within km, closest first
+     */
+    public int[] withinRadius(final double latitude, final double longitude,
+                              final double km) {
+        double[] query = unitVector(latitude, longitude);
+        List<Integer> found = new ArrayList<>();
+        within(query, 0, ids.length, 0, chordSquared(km), found);
+        found.sort((a, b) -> Double.compare(squaredChord(query, a),
+                squaredChord(query, b)));
+        int[] result = new int[found.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids[found.get(i)];
+        }
+        return result;
+    }
+
+    private void within(final double[] query, final int lo, final int hi,
+                        final int depth, final double limit,
+                        final List<Integer> found) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (squaredChord(query, mid) <= limit) {
+            found.add(mid);
+        }
+        double diff = query[depth % 3] - coordinate(depth % 3, mid);
+        if (diff < 0 || diff * diff <= limit) {
+            within(query, lo, mid, depth + 1, limit, found);
+        }
+        if (diff >= 0 || diff * diff <= limit) {
+            within(query, mid + 1, hi, depth + 1, limit, found);
+        }
+    }
+
+    /**
+     * Great circle distance.
+     * @return km between the two points
+     */
+    public static double distanceKm(final double lat1, final double lon1,
+                                    final double lat2, final double lon2) {
+        double[] a = unitVector(lat1, lon1);
+        double[] b = unitVector(lat2, lon2);
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return 2 * Math.asin(Math.min(1, chord / 2)) * EARTH_RADIUS_KM;
+    }
+
+    private static double[] unitVector(final double latitude,
+                                       final double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[]{Math.cos(lat) * Math.cos(lon),
+                Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+    }
+
+    /**
+     * The squared straight-line distance between two unit vectors km apart
+     * along the earth.
+     */
+    private static double chordSquared(final double km) {
+        if (Double.isNaN(km) || km < 0) {
+            return -1;
+        }
+        if (km >= Math.PI * EARTH_RADIUS_KM) {
+            // Anywhere at all, the far side of the earth is 2 away
+            return Double.POSITIVE_INFINITY;
+        }
+        double chord = 2 * Math.sin(km / (2 * EARTH_RADIUS_KM));
+        return chord * chord;
+    }
+
+    private double squaredChord(final double[] query, final int at) {
+        double dx = query[0] - xs[at];
+        double dy = query[1] - ys[at];
+        double dz = query[2] - zs[at];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private double coordinate(final int axis, final int at) {
+        if (axis == 0) {
+            return xs[at];
+        }
+        return axis == 1 ? ys[at] : zs[at];
+    }
+}
@@ -0,0 +1,43 @@
+package fuze.entity.plan;
+
+import fuze.entity.clothing.Outfit;
+import fuze.entity.weather.WeatherDay;
+
+/**
+ * One planned day: the forecast day it's for and the outfit picked for it.
+ * The WeatherDay is only referenced, never changed, so the same forecast can
+ * be in any number of plans at once.
+ */
+public final class DayPlan {
+    private final WeatherDay day;
+    private final Outfit outfit;
+
+    /**
+     * @param day the forecast day, not null
+     * @param outfit what to wear, null if nothing could be put together
+     */
+    public DayPlan(final WeatherDay day, final Outfit outfit) {
+        if (day == null) {
+            throw new IllegalArgumentException("Day cannot be null");
+        }
+        this.day = day;
+        this.outfit = outfit;
+    }
+
+    public WeatherDay getDay() {
+        return day;
+    }
+
+    public Outfit getOutfit() {
+        return outfit;
+    }
+
+    public String getDate() {
+        return day.getDate();
+    }
+
+    @Override
+    public String toString() {
+        return day + ", outfit=" + outfit;
+    }
+}
@@ -0,0 +1,85 @@
+package fuze.entity.plan;
+
+import fuze.entity.clothing.Outfit;
+import fuze.entity.weather.WeatherDay;
+import fuze.entity.weather.WeatherWeek;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The plan for a week at one location. Slot i is day i of the WeatherWeek it
+ * was made from, and is null where the week had no day, so the planner grid
+ * can show its 7 slots as they are.
+ */
+public final class WeekPlan {
+    private final String location;
+    private final DayPlan[] days;
+
+    /**
+     * @param location name of the place, as the week had it
+     * @param days one per slot, nulls where there's nothing (copied)
+     */
+    public WeekPlan(final String location, final List<DayPlan> days) {
+        this.location = location;
+        this.days = days != null ? days.toArray(new DayPlan[0])
+                : new DayPlan[0];
+    }
+
+    /**
+     * A plan with the week's weather but no outfits, for when there's nothing
+     * to plan with.
+     * @param week the week, null gives an empty plan
+     * @param slots how many days to take
+     * @return the plan
+     */
+    public static WeekPlan weatherOnly(final WeatherWeek week,
+                                       final int slots) {
+        if (week == null) {
+            return new WeekPlan(null, List.of());
+        }
+        DayPlan[] days = new DayPlan[slots];
+        for (int i = 0; i < slots; i++) {
+            WeatherDay day = week.getWeatherDay(i);
+            days[i] = day != null ? new DayPlan(day, null) : null;
+        }
+        return new WeekPlan(week.getDefaultLocation(), Arrays.asList(days));
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * @return number of slots, including empty ones
+     */
+    public int size() {
+        return days.length;
+    }
+
+    /**
+     * @param index slot number
+     * @return the day's plan, null if the slot is empty or doesn't exist
+     */
+    public DayPlan getDay(final int index) {
+        return index >= 0 && index < days.length ? days[index] : null;
+    }
+
+    /**
+     * @param index slot number
+     * @return the forecast for the slot, null if there's none
+     */
+    public WeatherDay getWeatherDay(final int index) {
+        DayPlan plan = getDay(index);
+        return plan != null ? plan.getDay() : null;
+    }
+
+    /**
+     * @param index slot number
+     * @return the outfit for the slot, null if there's none
+     */
+    public Outfit getOutfit(final int index) {
+        DayPlan plan = getDay(index);
+        return plan != null ? plan.getOutfit() : null;
+    }
+}
@@ -0,0 +1,170 @@
+package fuze.entity.weather;
+
+import fuze.entity.location.PointIndex;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+
+/**
+ * Typical weather for every city and day of the year, for trip days past
+ * what open-meteo can forecast. It's read once from climatology.bin (made
+ * by ClimatologyIndexBuilder out of climate_normals.csv) into flat
+ * primitive arrays, city c's day d is at c * DAYS_PER_YEAR + d, so a lookup
+ * is just finding the closest city (in a PointIndex).
+ */
+public final class ClimatologyIndex {
+    /**
+     * Every year is treated as a leap year, Feb 29 is day 59 and Dec 31 is
+     * day 365.
+     */
+    public static final int DAYS_PER_YEAR = 366;
+    static final int MAGIC = 0x46434c4d;
+    static final int VERSION = 1;
+    static final String RESOURCE = "fuze/entity/weather/climatology.bin";
+    /**
+     * Further than this from every city and the normals would be a guess.
+     */
+    private static final double MAX_DISTANCE_KM = 500;
+
+    private final int cityCount;
+    private final float[] highs;
+    private final float[] lows;
+    private final byte[] codes;
+    private final PointIndex cities;
+
+    private ClimatologyIndex(final float[] longitudes, final float[] latitudes,
+                             final float[] highs, final float[] lows,
+                             final byte[] codes) {
+        this.cityCount = longitudes.length;
+        this.highs = highs;
+        this.lows = lows;
+        this.codes = codes;
+        double[] lats = new double[cityCount];
+        double[] lons = new double[cityCount];
+        for (int c = 0; c < cityCount; c++) {
+            lats[c] = latitudes[c];
+            lons[c] = longitudes[c];
+        }
+        this.cities = new PointIndex(lats, lons);
+    }
+
+    /**
+     * @return the index bundled with the app, empty if it's missing
+     */
+    public static ClimatologyIndex getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * Loaded on first use only, trips within the forecast never need it.
+     */
+    private static final class Holder {
+        private static final ClimatologyIndex DEFAULT = load();
+    }
+
+    private static ClimatologyIndex load() {
+        InputStream stream = ClimatologyIndex.class.getClassLoader()
+                .getResourceAsStream(RESOURCE);
+        if (stream == null) {
+            System.out.println("No climate normals bundled, trips only get "
+                    + "forecast days");
+            return empty();
+        }
+        try (InputStream in = stream) {
+            return read(in);
+        } catch (IOException e) {
+            System.out.println("Could not read climate normals: "
+                    + e.getMessage());
+            return empty();
+        }
+    }
+
+    private static ClimatologyIndex empty() {
+        return new ClimatologyIndex(new float[0], new float[0], new float[0],
+                new float[0], new byte[0]);
+    }
+
+    /**
+     * Reads an index in the format ClimatologyIndexBuilder writes.
+     * @param in the bytes, not closed here
+     * @return the index
+     * @throws IOException if it can't be read or isn't an index
+     */
+    public static ClimatologyIndex read(final InputStream in)
+            throws IOException {
+        DataInputStream data = new DataInputStream(
+                new BufferedInputStream(in));
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a climatology index");
+        }
+        int cities = data.readInt();
+        if (cities < 0 || data.readInt() != DAYS_PER_YEAR) {
+            throw new IOException("Bad climatology index header");
+        }
+        float[] lons = readFloats(data, cities);
+        float[] lats = readFloats(data, cities);
+        float[] highs = readFloats(data, cities * DAYS_PER_YEAR);
+        float[] lows = readFloats(data, cities * DAYS_PER_YEAR);
+        byte[] codes = new byte[cities * DAYS_PER_YEAR];
+        data.readFully(codes);
+        return new ClimatologyIndex(lons, lats, highs, lows, codes);
+    }
+
+    private static float[] readFloats(final DataInputStream data,
+                                      final int count) throws IOException {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = data.readFloat();
+        }
+        return values;
+    }
+
+    /**
+     * @return how many cities have normals
+     */
+    public int size() {
+        return cityCount;
+    }
+
+    /**
+     * @param date any date
+     * @return which of the DAYS_PER_YEAR slots it falls in
+     */
+    public static int dayOfYear(final LocalDate date) {
+        return LocalDate.of(2000, date.getMonth(), date.getDayOfMonth())
+                .getDayOfYear() - 1;
+    }
+
+    /**
+     * @param longitude lon double
+     * @param latitude lat double
+     * @return the closest city's number, -1 if none is within
+     * MAX_DISTANCE_KM
+     */
+    public int nearestCity(final double longitude, final double latitude) {
+        return cities.nearest(latitude, longitude, MAX_DISTANCE_KM);
+    }
+
+    /**
+     * The typical day instead of a forecast.
+     * @param longitude lon double
+     * @param latitude lat double
+     * @param date the day wanted
+     * @return a WeatherDay (isNormal()) with the normal high, low and most
+     * usual weather of the closest city, null if there's no city close
+     * enough
+     */
+    public WeatherDay normalDay(final double longitude, final double latitude,
+                                final LocalDate date) {
+        int city = nearestCity(longitude, latitude);
+        if (city < 0) {
+            return null;
+        }
+        int i = city * DAYS_PER_YEAR + dayOfYear(date);
+        return WeatherDay.normal(codes[i] & 0xff, highs[i], lows[i],
+                longitude, latitude, date.toString());
+    }
+}
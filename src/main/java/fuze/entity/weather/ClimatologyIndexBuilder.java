@@ -0,0 +1,157 @@
+package fuze.entity.weather;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns climate_normals.csv (monthly normal highs, lows and the usual WMO
+ * code per city) into climatology.bin for ClimatologyIndex. Run by hand
+ * whenever the CSV changes, the app itself only ever reads the .bin.
+ * Highs and lows are interpolated between the middles of the months so
+ * there's no jump on the 1st, codes just follow the month.
+ */
+public final class ClimatologyIndexBuilder {
+    private static final int MONTHS = 12;
+    private static final String FOLDER = "src/main/resources/fuze/entity/"
+            + "weather";
+
+    private ClimatologyIndexBuilder() {
+    }
+
+    /**
+     * @param args [normals csv] [index to write], defaults are the ones in
+     *             src/main/resources
+     * @throws IOException if either file can't be used
+     */
+    public static void main(final String[] args) throws IOException {
+        Path in = Paths.get(args.length > 0 ? args[0]
+                : FOLDER + "/climate_normals.csv");
+        Path out = Paths.get(args.length > 1 ? args[1]
+                : FOLDER + "/climatology.bin");
+        int cities;
+        try (Reader reader = Files.newBufferedReader(in,
+                StandardCharsets.UTF_8);
+             OutputStream writer = Files.newOutputStream(out)) {
+            cities = build(reader, writer);
+        }
+        System.out.println("Wrote normals for " + cities + " cities to "
+                + out);
+    }
+
+    /**
+     * @param normals the CSV, header first: city, lat, lng, then 12 highs,
+     *                12 lows and 12 codes
+     * @param out where the index goes, not closed here
+     * @return number of cities written
+     * @throws IOException if reading or writing fails, or a row is bad
+     */
+    public static int build(final Reader normals, final OutputStream out)
+            throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(normals);
+        reader.readLine();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] values = line.split(",");
+            if (values.length != 3 + 3 * MONTHS) {
+                throw new IOException("Bad normals row: " + line);
+            }
+            rows.add(values);
+        }
+
+        int n = rows.size();
+        int days = ClimatologyIndex.DAYS_PER_YEAR;
+        float[] lons = new float[n];
+        float[] lats = new float[n];
+        float[] highs = new float[n * days];
+        float[] lows = new float[n * days];
+        byte[] codes = new byte[n * days];
+        try {
+            for (int c = 0; c < n; c++) {
+                String[] row = rows.get(c);
+                lats[c] = Float.parseFloat(row[1]);
+                lons[c] = Float.parseFloat(row[2]);
+                double[] monthHighs = monthly(row, 3);
+                double[] monthLows = monthly(row, 3 + MONTHS);
+                double[] monthCodes = monthly(row, 3 + 2 * MONTHS);
+                for (int d = 0; d < days; d++) {
+                    LocalDate date = LocalDate.ofYearDay(2000, d + 1);
+                    highs[c * days + d] = (float) interpolate(monthHighs,
+                            date);
+                    lows[c * days + d] = (float) interpolate(monthLows,
+                            date);
+                    codes[c * days + d] = (byte) monthCodes[
+                            date.getMonthValue() - 1];
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad number in normals: " + e.getMessage());
+        }
+
+        DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(out));
+        data.writeInt(ClimatologyIndex.MAGIC);
+        data.writeInt(ClimatologyIndex.VERSION);
+        data.writeInt(n);
+        data.writeInt(days);
+        writeFloats(data, lons);
+        writeFloats(data, lats);
+        writeFloats(data, highs);
+        writeFloats(data, lows);
+        data.write(codes);
+        data.flush();
+        return n;
+    }
+
+    private static double[] monthly(final String[] row, final int from) {
+        double[] values = new double[MONTHS];
+        for (int m = 0; m < MONTHS; m++) {
+            values[m] = Double.parseDouble(row[from + m]);
+        }
+        return values;
+    }
+
+    /**
+     * Linear between this month's middle and the neighbouring month's,
+     * wrapping around the new year.
+     */
+    private static double interpolate(final double[] months,
+                                      final LocalDate date) {
+        int m = date.getMonthValue() - 1;
+        double middle = (date.lengthOfMonth() + 1) / 2.0;
+        double offset = date.getDayOfMonth() - middle;
+        int other;
+        double span;
+        if (offset < 0) {
+            other = (m + MONTHS - 1) % MONTHS;
+            span = middle + (date.minusMonths(1).lengthOfMonth() - 1) / 2.0;
+        } else {
+            other = (m + 1) % MONTHS;
+            span = date.lengthOfMonth() - middle
+                    + (date.plusMonths(1).lengthOfMonth() + 1) / 2.0;
+        }
+        double weight = Math.abs(offset) / span;
+        return months[m] + (months[other] - months[m]) * weight;
+    }
+
+    private static void writeFloats(final DataOutputStream data,
+                                    final float[] values) throws IOException {
+        for (float value : values) {
+            data.writeFloat(value);
+        }
+    }
+}
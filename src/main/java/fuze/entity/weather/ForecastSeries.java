@@ -0,0 +1,247 @@
+package fuze.entity.weather;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A run of consecutive forecast days for one location, stored column by
+ * column (one primitive array per value) instead of as WeatherDay objects.
+ * Day i is always startDate + i, so looking up a date is just a subtraction.
+ * WeatherDay-s are only made when someone asks for one.
+ */
+public final class ForecastSeries {
+    private final double longitude;
+    private final double latitude;
+    private final LocalDate startDate;
+    private final long startEpochDay;
+    private final int dayCount;
+    private final double[] highs;
+    private final double[] lows;
+    private final int[] weatherCodes;
+    // An old forecast handed out because a fresh one couldn't be had
+    private final boolean stale;
+
+    /**
+     * The arrays are used as they are (not copied), so don't change them
+     * afterwards.
+     * @param longitude lon double of the forecast
+     * @param latitude lat double of the forecast
+     * @param startDate date of index 0
+     * @param highs Celsius daily highs
+     * @param lows Celsius daily lows
+     * @param weatherCodes WMO codes, see WeatherDay
+     */
+    public ForecastSeries(final double longitude, final double latitude,
+                          final LocalDate startDate, final double[] highs,
+                          final double[] lows, final int[] weatherCodes) {
+        this(longitude, latitude, startDate, highs, lows, weatherCodes,
+                false);
+    }
+
+    private ForecastSeries(final double longitude, final double latitude,
+                           final LocalDate startDate, final double[] highs,
+                           final double[] lows, final int[] weatherCodes,
+                           final boolean stale) {
+        this.longitude = longitude;
+        this.latitude = latitude;
+        this.startDate = startDate;
+        this.startEpochDay = startDate.toEpochDay();
+        this.dayCount = Math.min(weatherCodes.length,
+                Math.min(highs.length, lows.length));
+        this.highs = highs;
+        this.lows = lows;
+        this.weatherCodes = weatherCodes;
+        this.stale = stale;
+    }
+
+    /**
+     * @return the same days, marked as an old fallback (see isStale)
+     */
+    public ForecastSeries asStale() {
+        return stale ? this : new ForecastSeries(longitude, latitude,
+                startDate, highs, lows, weatherCodes, true);
+    }
+
+    /**
+     * @return true if this is an old forecast served because a fresh one
+     * couldn't be fetched, these shouldn't be cached as if they were new
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * @return the last day in the series (the day before startDate if it's
+     * empty)
+     */
+    public LocalDate getEndDate() {
+        return startDate.plusDays(dayCount - 1L);
+    }
+
+    public int size() {
+        return dayCount;
+    }
+
+    public boolean isEmpty() {
+        return dayCount == 0;
+    }
+
+    /**
+     * @param date any date
+     * @return its index in the series, or -1 if it isn't covered
+     */
+    public int indexOf(final LocalDate date) {
+        long offset = date.toEpochDay() - startEpochDay;
+        return offset >= 0 && offset < dayCount ? (int) offset : -1;
+    }
+
+    public boolean contains(final LocalDate date) {
+        return indexOf(date) >= 0;
+    }
+
+    public LocalDate getDate(final int index) {
+        checkIndex(index);
+        return startDate.plusDays(index);
+    }
+
+    public double getHigh(final int index) {
+        checkIndex(index);
+        return highs[index];
+    }
+
+    public double getLow(final int index) {
+        checkIndex(index);
+        return lows[index];
+    }
+
+    public int getWeatherCode(final int index) {
+        checkIndex(index);
+        return weatherCodes[index];
+    }
+
+    /**
+     * Makes a new WeatherDay for one day of the series.
+     * @param index days from startDate
+     * @return a WeatherDay, null if index is outside the series
+     */
+    public WeatherDay getWeatherDay(final int index) {
+        if (index < 0 || index >= dayCount) {
+            return null;
+        }
+        return new WeatherDay(weatherCodes[index], highs[index], lows[index],
+                longitude, latitude, startDate.plusDays(index).toString());
+    }
+
+    /**
+     * @param date the day wanted
+     * @return a WeatherDay for that date, null if it isn't in the series
+     */
+    public WeatherDay getWeatherDay(final LocalDate date) {
+        return getWeatherDay(indexOf(date));
+    }
+
+    /**
+     * Cuts a part out of the series, as a series of its own.
+     * @param from first day wanted
+     * @param days how many days from there
+     * @return the days of that range this series has (maybe fewer than asked
+     * for, or none)
+     */
+    public ForecastSeries slice(final LocalDate from, final int days) {
+        long first = Math.max(from.toEpochDay() - startEpochDay, 0);
+        long last = Math.min(from.toEpochDay() + days - startEpochDay,
+                dayCount);
+        if (first >= last) {
+            return new ForecastSeries(longitude, latitude, from,
+                    new double[0], new double[0], new int[0], stale);
+        }
+        int a = (int) first;
+        int b = (int) last;
+        return new ForecastSeries(longitude, latitude, startDate.plusDays(a),
+                Arrays.copyOfRange(highs, a, b),
+                Arrays.copyOfRange(lows, a, b),
+                Arrays.copyOfRange(weatherCodes, a, b), stale);
+    }
+
+    /**
+     * @param other a series for the same place
+     * @return true if the two can be joined with mergedWith, i.e. either is
+     * empty or their days overlap or are next to each other
+     */
+    public boolean touches(final ForecastSeries other) {
+        if (isEmpty() || other.isEmpty()) {
+            return true;
+        }
+        long end = startEpochDay + dayCount - 1;
+        long otherEnd = other.startEpochDay + other.dayCount - 1;
+        return other.startEpochDay <= end + 1
+                && otherEnd >= startEpochDay - 1;
+    }
+
+    /**
+     * Joins this series with a newer one for the same place. They have to
+     * overlap or at least touch (see touches), since the days of a series
+     * can't have gaps.
+     * @param newer the series to add, its values win where both have a day
+     * @return one series covering both. Stale if either of them was
+     * @throws IllegalArgumentException if there are days missing between
+     * the two
+     */
+    public ForecastSeries mergedWith(final ForecastSeries newer) {
+        if (!touches(newer)) {
+            throw new IllegalArgumentException("Can't join " + this
+                    + " and " + newer + ", there's a gap between them");
+        }
+        if (newer.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return newer;
+        }
+        long newStart = newer.startEpochDay;
+        long newEnd = newStart + newer.dayCount - 1;
+        long end = startEpochDay + dayCount - 1;
+        long first = Math.min(startEpochDay, newStart);
+        int length = (int) (Math.max(end, newEnd) - first + 1);
+        double[] mergedHighs = new double[length];
+        double[] mergedLows = new double[length];
+        int[] mergedCodes = new int[length];
+        int at = (int) (startEpochDay - first);
+        System.arraycopy(highs, 0, mergedHighs, at, dayCount);
+        System.arraycopy(lows, 0, mergedLows, at, dayCount);
+        System.arraycopy(weatherCodes, 0, mergedCodes, at, dayCount);
+        at = (int) (newStart - first);
+        System.arraycopy(newer.highs, 0, mergedHighs, at, newer.dayCount);
+        System.arraycopy(newer.lows, 0, mergedLows, at, newer.dayCount);
+        System.arraycopy(newer.weatherCodes, 0, mergedCodes, at,
+                newer.dayCount);
+        return new ForecastSeries(newer.longitude, newer.latitude,
+                LocalDate.ofEpochDay(first), mergedHighs, mergedLows,
+                mergedCodes, stale || newer.stale);
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= dayCount) {
+            throw new IndexOutOfBoundsException("Day " + index
+                    + " is outside a series of " + dayCount + " days");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ForecastSeries from " + startDate + " (" + dayCount
+                + " days) at " + longitude + ", " + latitude;
+    }
+}
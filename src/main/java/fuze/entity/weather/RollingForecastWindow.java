@@ -0,0 +1,269 @@
+package fuze.entity.weather;
+
+import fuze.entity.location.GridCell;
+import fuze.entity.location.LocationStringToCoordinate;
+import fuze.framework.weatherapi.ForecastStore;
+import fuze.framework.weatherapi.WeatherFetcher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The next few days of forecast for one location, kept between refreshes.
+ * The days sit in a ring buffer where day d goes in slot d % capacity, so
+ * when midnight passes yesterday's slot just becomes tomorrow's and only
+ * that one new day gets fetched, instead of the whole week again.
+ * Each day also remembers when it was fetched, and once that's longer ago
+ * than the time to live it counts as missing again (it's still shown until
+ * the new one is in), so a day fetched a week ago isn't what "today" shows.
+ */
+public final class RollingForecastWindow {
+    /**
+     * Same days as a WeatherWeek, today and the 6 after it.
+     */
+    public static final int DEFAULT_DAYS = 7;
+    private static final long NO_DAY = Long.MIN_VALUE;
+    // Fetch time of days that were already old when we got them (a stale
+    // fallback), they are shown but always count as expired
+    private static final long NEVER = Long.MIN_VALUE;
+    // Keyed by grid cell so every name for the same place shares one window
+    // (and whatever gets typed in can't make new ones forever)
+    private static final Map<GridCell, RollingForecastWindow> WINDOWS =
+            new ConcurrentHashMap<>();
+
+    private final String locationName;
+    private final double longitude;
+    private final double latitude;
+    private final int capacity;
+    // All guarded by this, slotDays[i] is the epoch day held in slot i and
+    // slotFetched[i] when it was fetched (millis)
+    private final WeatherDay[] slots;
+    private final long[] slotDays;
+    private final long[] slotFetched;
+    private boolean seeded;
+    private volatile Duration timeToLive;
+
+    /**
+     * Days expire after the forecast store's time to live.
+     * @param locationName what WeatherWeek-s made from it are called
+     * @param longitude lon double
+     * @param latitude lat double
+     * @param capacity how many days, starting today
+     */
+    public RollingForecastWindow(final String locationName,
+                                 final double longitude,
+                                 final double latitude, final int capacity) {
+        this(locationName, longitude, latitude, capacity,
+                ForecastStore.getDefault().getTimeToLive());
+    }
+
+    /**
+     * @param locationName what WeatherWeek-s made from it are called
+     * @param longitude lon double
+     * @param latitude lat double
+     * @param capacity how many days, starting today
+     * @param timeToLive how long a fetched day is good for
+     */
+    public RollingForecastWindow(final String locationName,
+                                 final double longitude,
+                                 final double latitude, final int capacity,
+                                 final Duration timeToLive) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Window needs at least a day");
+        }
+        this.locationName = locationName;
+        this.longitude = longitude;
+        this.latitude = latitude;
+        this.capacity = capacity;
+        this.timeToLive = timeToLive;
+        this.slots = new WeatherDay[capacity];
+        this.slotDays = new long[capacity];
+        this.slotFetched = new long[capacity];
+        Arrays.fill(slotDays, NO_DAY);
+    }
+
+    /**
+     * @param locationString same as WeatherWeek(String)
+     * @return the window of DEFAULT_DAYS kept for that location's grid cell,
+     * the same one every time (and for any other name of the same place)
+     */
+    public static RollingForecastWindow forLocation(
+            final String locationString) {
+        LocationStringToCoordinate coordinate =
+                new LocationStringToCoordinate(locationString);
+        double longitude = coordinate.getLongitude();
+        double latitude = coordinate.getLatitude();
+        return WINDOWS.computeIfAbsent(GridCell.of(longitude, latitude),
+                cell -> new RollingForecastWindow(locationString, longitude,
+                        latitude, DEFAULT_DAYS));
+    }
+
+    public String getLocationName() {
+        return locationName;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(final Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Same as refresh(today) for the actual today.
+     */
+    public CompletableFuture<WeatherWeek> refresh() {
+        return refresh(LocalDate.now());
+    }
+
+    /**
+     * Moves the window to start at today, fetching only the days in it that
+     * aren't held yet or have expired (after one midnight that's just the
+     * last one).
+     * @param today first day of the window
+     * @return future of a WeatherWeek with the window's days, whatever
+     * couldn't be fetched is left out. It's isStale() if some days are still
+     * missing or old
+     */
+    public CompletableFuture<WeatherWeek> refresh(final LocalDate today) {
+        seedFromCache(today);
+        long first = today.toEpochDay();
+        long now = System.currentTimeMillis();
+        long firstMissing = NO_DAY;
+        long lastMissing = NO_DAY;
+        synchronized (this) {
+            for (long day = first; day < first + capacity; day++) {
+                if (isMissing(day, now)) {
+                    if (firstMissing == NO_DAY) {
+                        firstMissing = day;
+                    }
+                    lastMissing = day;
+                }
+            }
+        }
+        if (firstMissing == NO_DAY) {
+            return CompletableFuture.completedFuture(toWeek(today));
+        }
+        // One request for everything missing, the fetcher counts from zero
+        return WeatherFetcher.fetchAsync(
+                        LocalDate.ofEpochDay(firstMissing).toString(),
+                        (int) (lastMissing - firstMissing),
+                        longitude, latitude)
+                .thenApply(fetcher -> {
+                    put(fetcher.getForecastSeries(), first,
+                            System.currentTimeMillis());
+                    return toWeek(today);
+                });
+    }
+
+    /**
+     * @param today first day of the window
+     * @return true if refresh(today) would have to fetch anything
+     */
+    public synchronized boolean needsRefresh(final LocalDate today) {
+        long first = today.toEpochDay();
+        long now = System.currentTimeMillis();
+        for (long day = first; day < first + capacity; day++) {
+            if (isMissing(day, now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The first time the window is used it starts out with whatever the
+     * caches have for it (even an old forecast, whose days then count as
+     * expired), so there's something to draw before the network answers.
+     */
+    private void seedFromCache(final LocalDate today) {
+        synchronized (this) {
+            if (seeded) {
+                return;
+            }
+            seeded = true;
+        }
+        WeatherFetcher cached = WeatherFetcher.fromCache(today.toString(),
+                capacity - 1, longitude, latitude);
+        put(cached.getForecastSeries(), today.toEpochDay(),
+                cached.isStale() ? NEVER : System.currentTimeMillis());
+    }
+
+    /**
+     * Stores what was fetched, skipping anything outside the window it was
+     * fetched for.
+     * @param fetchedAt when it was fetched, ignored for a stale series
+     */
+    private synchronized void put(final ForecastSeries series,
+                                  final long first, final long fetchedAt) {
+        if (series == null) {
+            return;
+        }
+        long fetched = series.isStale() ? NEVER : fetchedAt;
+        for (int i = 0; i < series.size(); i++) {
+            long day = series.getDate(i).toEpochDay();
+            int slot = slot(day);
+            // A later refresh may have moved the window on meanwhile, and an
+            // old fallback never replaces a day we already have
+            if (day >= first && day < first + capacity
+                    && (slotDays[slot] == NO_DAY || slotDays[slot] < day
+                    || (slotDays[slot] == day && fetched != NEVER))) {
+                slots[slot] = series.getWeatherDay(i);
+                slotDays[slot] = day;
+                slotFetched[slot] = fetched;
+            }
+        }
+    }
+
+    private boolean isMissing(final long day, final long now) {
+        int slot = slot(day);
+        return slotDays[slot] != day || slotFetched[slot] == NEVER
+                || now - slotFetched[slot] > timeToLive.toMillis();
+    }
+
+    /**
+     * @param today first day wanted
+     * @return the held days from today on, in order, stopping at the first
+     * one that isn't held
+     */
+    public synchronized WeatherDaySequence getDays(final LocalDate today) {
+        long first = today.toEpochDay();
+        List<WeatherDay> days = new ArrayList<>(capacity);
+        for (long day = first; day < first + capacity; day++) {
+            int slot = slot(day);
+            if (slotDays[slot] != day) {
+                break;
+            }
+            days.add(slots[slot]);
+        }
+        return WeatherDaySequence.of(days);
+    }
+
+    /**
+     * Never goes to the network, see refresh for that (the first call reads
+     * the caches though).
+     * @param today first day wanted
+     * @return a WeatherWeek of the days held from today on (see getDays),
+     * isStale() if refresh would fetch anything
+     */
+    public WeatherWeek getWeek(final LocalDate today) {
+        seedFromCache(today);
+        return toWeek(today);
+    }
+
+    private WeatherWeek toWeek(final LocalDate today) {
+        return new WeatherWeek(getDays(today), locationName,
+                new double[]{longitude, latitude}, needsRefresh(today));
+    }
+
+    private int slot(final long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) capacity);
+    }
+}
@@ -0,0 +1,72 @@
+package fuze.entity.weather;
+
+import java.util.Arrays;
+
+/**
+ * What the sky is doing, boiled down from a WMO code (look them up, they're
+ * cool). The codes are looked up in a table made once, so turning a code
+ * into a condition is an array read.
+ */
+public enum WeatherCondition {
+    SUNNY("Sunny", false),
+    SCATTERED_CLOUDS("Scattered Clouds", false),
+    CLOUDY("Cloudy Skies", false),
+    SNOWING("Snowing", false),
+    RAINING("Raining", true),
+    NO_DATA("No Weather Data", false);
+
+    // WMO codes only go up to 99, anything past the table has no data
+    private static final WeatherCondition[] BY_CODE = new WeatherCondition[256];
+
+    static {
+        // Later lines win, same order of priority as the old if-chain in
+        // WeatherDay read bottom to top
+        Arrays.fill(BY_CODE, NO_DATA);
+        Arrays.fill(BY_CODE, 0, 201, RAINING);
+        BY_CODE[22] = SNOWING;
+        BY_CODE[26] = SNOWING;
+        Arrays.fill(BY_CODE, 0, 20, CLOUDY);
+        Arrays.fill(BY_CODE, 40, 50, CLOUDY);
+        BY_CODE[1] = SCATTERED_CLOUDS;
+        BY_CODE[2] = SCATTERED_CLOUDS;
+        BY_CODE[0] = SUNNY;
+    }
+
+    private final String label;
+    private final boolean rain;
+
+    WeatherCondition(final String label, final boolean rain) {
+        this.label = label;
+        this.rain = rain;
+    }
+
+    /**
+     * @param weatherCode WMO code from open-meteo
+     * @return the condition, NO_DATA for codes we don't know
+     */
+    public static WeatherCondition fromCode(final int weatherCode) {
+        if (weatherCode < 0 || weatherCode >= BY_CODE.length) {
+            return NO_DATA;
+        }
+        return BY_CODE[weatherCode];
+    }
+
+    /**
+     * @return what the UI shows, e.g. "Scattered Clouds"
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return whether to bring something waterproof
+     */
+    public boolean isRain() {
+        return rain;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
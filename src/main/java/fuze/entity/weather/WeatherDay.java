@@ -1,19 +1,23 @@
 package fuze.entity.weather;
 
-import fuze.entity.clothing.Outfit;
-
 /**
- * A class to represent everything for a given day, the outfit, all the
- * weather parameters, and whatever else you'd like!
+ * A class to represent everything about the weather for a given day.
+ * It never changes once made, so the same WeatherDay can be kept in caches
+ * and handed to any number of planners or threads. Outfits picked for it
+ * go in a DayPlan instead.
  */
-public class WeatherDay {
+public final class WeatherDay {
 
-    private String weather;
-    private double temperatureHigh;
-    private double temperatureLow;
-    private Outfit outfit;
-    private double[] location;
-    private String date;
+    private final WeatherCondition condition;
+    private final int weatherCode;
+    private final double temperatureHigh;
+    private final double temperatureLow;
+    // NaN when the day isn't for anywhere in particular
+    private final double longitude;
+    private final double latitude;
+    private final String date;
+    // Usual weather for the date (ClimatologyIndex), not a forecast
+    private final boolean normal;
 
     /**
      * Creates a new instance of WeatherDay, only really to be called by WeatherFetcher
@@ -22,16 +26,58 @@ public class WeatherDay {
      *                        cuz it's cool)
      * @param temperatureHigh Celsius double representing daily high
      * @param temperatureLow  Celsius double representing daily low
-     * @param location        a double[] form of [longitude, latitude]
+     * @param longitude       lon double
+     * @param latitude        lat double
      * @param date            a string representation of "yyyy-mm-dd"
      */
-    public WeatherDay(int weather, double temperatureHigh, double temperatureLow, double[] location, String date) {
+    public WeatherDay(int weather, double temperatureHigh, double temperatureLow,
+                      double longitude, double latitude, String date) {
+        this(weather, temperatureHigh, temperatureLow, longitude, latitude,
+                date, false);
+    }
+
+    private WeatherDay(int weather, double temperatureHigh, double temperatureLow,
+                       double longitude, double latitude, String date,
+                       boolean normal) {
+        this.normal = normal;
+        this.weatherCode = weather;
+        this.condition = WeatherCondition.fromCode(weather);
         this.temperatureHigh = temperatureHigh;
         this.temperatureLow = temperatureLow;
-        this.outfit = null; // CHANGE LATER
-        this.location = location;
+        this.longitude = longitude;
+        this.latitude = latitude;
         this.date = date;
-        this.weather = weatherCodeToString(weather);
+    }
+
+    /**
+     * Same as above with the location as a double[] of [longitude, latitude]
+     * (null or too short means no location).
+     */
+    public WeatherDay(int weather, double temperatureHigh, double temperatureLow, double[] location, String date) {
+        this(weather, temperatureHigh, temperatureLow,
+                location != null && location.length >= 2 ? location[0] : Double.NaN,
+                location != null && location.length >= 2 ? location[1] : Double.NaN,
+                date);
+    }
+
+    /**
+     * A day of the usual weather for that place and time of year instead of
+     * a forecast, same parameters as the first constructor.
+     * @return a WeatherDay that isNormal()
+     */
+    public static WeatherDay normal(int weather, double temperatureHigh,
+                                    double temperatureLow, double longitude,
+                                    double latitude, String date) {
+        return new WeatherDay(weather, temperatureHigh, temperatureLow,
+                longitude, latitude, date, true);
+    }
+
+    /**
+     * @return true if this is the usual weather for the date rather than a
+     * forecast, so the UI can say it's only a guess
+     */
+    public boolean isNormal() {
+        return normal;
     }
 
     /**
@@ -39,26 +85,29 @@ public class WeatherDay {
      * this
      *
      * @param weatherCode same WMO code above
-     * @return String representation of what I thought the most common codes
-     * would be given the website we use and NOAA data.
+     * @return String representation, see WeatherCondition
      */
     public String weatherCodeToString(int weatherCode) {
-        if (weatherCode == 0) {
-            return "Sunny";
-        } else if (weatherCode == 1 || weatherCode == 2) {
-            return "Scattered Clouds";
-        } else if (weatherCode < 20 || (40 <= weatherCode && weatherCode < 50)) {
-            return "Cloudy Skies";
-        } else if (weatherCode == 22 || weatherCode == 26) {
-            return "Snowing";
-        } else if (weatherCode <= 200) {
-            return "Raining";
-        }
-        return "No Weather Data";
+        return WeatherCondition.fromCode(weatherCode).getLabel();
+    }
+
+    public WeatherCondition getCondition() {
+        return condition;
     }
 
+    public int getWeatherCode() {
+        return weatherCode;
+    }
+
+    /**
+     * @return the condition as the UI shows it
+     */
     public String getWeather() {
-        return weather;
+        return condition.getLabel();
+    }
+
+    public boolean isRaining() {
+        return condition.isRain();
     }
 
     public double getTemperatureHigh() {
@@ -69,16 +118,24 @@ public class WeatherDay {
         return temperatureLow;
     }
 
-    public Outfit getOutfit() {
-        return outfit;
+    public double getLongitude() {
+        return longitude;
     }
 
-    public void setOutfit(Outfit outfit) {
-        this.outfit = outfit;
+    public double getLatitude() {
+        return latitude;
     }
 
+    public boolean hasLocation() {
+        return !Double.isNaN(longitude) && !Double.isNaN(latitude);
+    }
+
+    /**
+     * Makes a new array every call, use getLongitude/getLatitude in loops.
+     * @return [longitude, latitude], null if there's no location
+     */
     public double[] getLocation() {
-        return location;
+        return hasLocation() ? new double[]{longitude, latitude} : null;
     }
 
     public String getDate() {
@@ -87,13 +144,12 @@ public class WeatherDay {
 
     @Override
     public String toString() {
-        return "WeatherDay on " + date +
-                " weather='" + weather + '\'' +
+        return (normal ? "Normal WeatherDay on " : "WeatherDay on ") + date +
+                " weather='" + condition.getLabel() + '\'' +
                 ", temperature high=" + temperatureHigh +
                 ", temperature low=" + temperatureLow +
-                ", outfit=" + outfit +
-                ", location='" + location[0]
-                + ", " + location[1] + '\'';
+                ", location='" + longitude
+                + ", " + latitude + '\'';
     }
 
     public double getTemperature() {
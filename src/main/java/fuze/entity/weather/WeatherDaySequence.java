@@ -0,0 +1,227 @@
+package fuze.entity.weather;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The days of a WeatherWeek or WeatherTrip in order, backed by a plain
+ * array instead of a LinkedList so getting day i (or a date) doesn't walk
+ * the whole thing. It never changes once made; slice() shares the array
+ * with the original so it's cheap too.
+ */
+public final class WeatherDaySequence implements Iterable<WeatherDay> {
+    private static final WeatherDaySequence EMPTY = new WeatherDaySequence(
+            new WeatherDay[0], new long[0], 0, 0, true);
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final WeatherDay[] days;
+    // Parsed WeatherDay dates, NO_DATE where there isn't a valid one
+    private final long[] epochDays;
+    private final int offset;
+    private final int size;
+    // Every day is the one after the previous, so dates are an offset away
+    private final boolean consecutive;
+
+    private WeatherDaySequence(final WeatherDay[] days, final long[] epochDays,
+                               final int offset, final int size,
+                               final boolean consecutive) {
+        this.days = days;
+        this.epochDays = epochDays;
+        this.offset = offset;
+        this.size = size;
+        this.consecutive = consecutive;
+    }
+
+    public static WeatherDaySequence empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param days the days in order, nulls are skipped (the collection
+     *             itself is copied, not kept)
+     * @return the sequence
+     */
+    public static WeatherDaySequence of(final Collection<WeatherDay> days) {
+        if (days == null || days.isEmpty()) {
+            return EMPTY;
+        }
+        WeatherDay[] array = new WeatherDay[days.size()];
+        int n = 0;
+        for (WeatherDay day : days) {
+            if (day != null) {
+                array[n++] = day;
+            }
+        }
+        return wrap(array, n);
+    }
+
+    /**
+     * Makes the WeatherDay-s for the first count days of a series.
+     * @param series the forecast, null gives an empty sequence
+     * @param count how many days (more than it has just means all of them)
+     * @return the sequence
+     */
+    public static WeatherDaySequence fromSeries(final ForecastSeries series,
+                                                final int count) {
+        if (series == null) {
+            return EMPTY;
+        }
+        int n = Math.max(0, Math.min(count, series.size()));
+        WeatherDay[] array = new WeatherDay[n];
+        for (int i = 0; i < n; i++) {
+            array[i] = series.getWeatherDay(i);
+        }
+        return wrap(array, n);
+    }
+
+    private static WeatherDaySequence wrap(final WeatherDay[] array,
+                                           final int n) {
+        if (n == 0) {
+            return EMPTY;
+        }
+        long[] dates = new long[n];
+        boolean consecutive = true;
+        for (int i = 0; i < n; i++) {
+            dates[i] = parse(array[i].getDate());
+            consecutive = consecutive && dates[i] != NO_DATE
+                    && (i == 0 || dates[i] == dates[i - 1] + 1);
+        }
+        return new WeatherDaySequence(array, dates, 0, n, consecutive);
+    }
+
+    private static long parse(final String date) {
+        if (date == null) {
+            return NO_DATE;
+        }
+        try {
+            return LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return NO_DATE;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index position from the first day
+     * @return the day, null if there's no such position
+     */
+    public WeatherDay get(final int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        return days[offset + index];
+    }
+
+    /**
+     * @param date the day wanted
+     * @return its position, -1 if it isn't in here
+     */
+    public int indexOf(final LocalDate date) {
+        if (size == 0 || date == null) {
+            return -1;
+        }
+        long wanted = date.toEpochDay();
+        if (consecutive) {
+            long index = wanted - epochDays[offset];
+            return index >= 0 && index < size ? (int) index : -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (epochDays[offset + i] == wanted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param date the day wanted
+     * @return the WeatherDay for it, null if it isn't in here
+     */
+    public WeatherDay get(final LocalDate date) {
+        return get(indexOf(date));
+    }
+
+    /**
+     * @param from first position included
+     * @param to first position not included
+     * @return the days in between, sharing this one's array
+     * @throws IndexOutOfBoundsException if the range isn't inside this one
+     */
+    public WeatherDaySequence slice(final int from, final int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("slice " + from + " to " + to
+                    + " of " + size);
+        }
+        if (from == to) {
+            return EMPTY;
+        }
+        return new WeatherDaySequence(days, epochDays, offset + from,
+                to - from, consecutive);
+    }
+
+    /**
+     * @param from first date included
+     * @param count how many days
+     * @return whatever part of that range is in here (empty if none)
+     */
+    public WeatherDaySequence slice(final LocalDate from, final int count) {
+        if (!consecutive) {
+            int start = indexOf(from);
+            return start < 0 ? EMPTY
+                    : slice(start, Math.min(size, start + Math.max(count, 0)));
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        long start = from.toEpochDay() - epochDays[offset];
+        long end = start + count;
+        int clampedStart = (int) Math.max(0, Math.min(start, size));
+        int clampedEnd = (int) Math.max(clampedStart, Math.min(end, size));
+        return slice(clampedStart, clampedEnd);
+    }
+
+    /**
+     * Not for loops, every call copies the whole thing.
+     * @param day added at the end
+     * @return a new sequence with day after all of these
+     */
+    public WeatherDaySequence with(final WeatherDay day) {
+        if (day == null) {
+            return this;
+        }
+        WeatherDay[] array = new WeatherDay[size + 1];
+        System.arraycopy(days, offset, array, 0, size);
+        array[size] = day;
+        return wrap(array, size + 1);
+    }
+
+    @Override
+    public Iterator<WeatherDay> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public WeatherDay next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return days[offset + next++];
+            }
+        };
+    }
+}
@@ -1,46 +1,158 @@
 package fuze.entity.weather;
 
-import java.util.Iterator;
-import java.util.Queue;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.json.JSONArray;
 
 /**
  * Abstract Class, extended by WeatherTrip and WeatherWeek
- * has a Queue that holds a linkedList of WeatherDay-s
+ * has a WeatherDaySequence that holds the WeatherDay-s, so any day (by
+ * number or by date) is a direct lookup.
+ * The lazy ones (see WeatherWeek.lazy and WeatherTrip.lazy) only start
+ * fetching their days on first use, or when load() is called. The getters
+ * never wait for that (they're called on the Swing thread): until the days
+ * are in they just see none and isPending() is true, use load() to hear
+ * when they're there.
  */
 public abstract class WeatherDays {
 
-    private Queue<WeatherDay> days;
+    // Swapped as a whole (e.g. when a stale week is revalidated), never
+    // changed in place
+    private volatile WeatherDaySequence days = WeatherDaySequence.empty();
+    // True until a lazy one's days are in
+    private volatile boolean pending = false;
+    // Both guarded by this, the loader is dropped once it has been started
+    private Supplier<CompletableFuture<WeatherDaySequence>> loader;
+    private CompletableFuture<Void> loading;
+
+    /**
+     * Waits for all of them at once, e.g. a few cities or trips that were
+     * made with the lazy factories, so their fetches run side by side.
+     * @param all the weeks/trips
+     * @return a future that's done once every one has its days
+     */
+    public static CompletableFuture<Void> loadAll(WeatherDays... all) {
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[all.length];
+        for (int i = 0; i < all.length; i++) {
+            loads[i] = all[i].loadDays();
+        }
+        return CompletableFuture.allOf(loads);
+    }
+
+    /**
+     * Makes this lazy, the loader runs (once) the first time the days are
+     * needed instead of now.
+     * @param loader gives the future of the days, run at most once
+     */
+    protected synchronized void setDayLoader(
+            Supplier<CompletableFuture<WeatherDaySequence>> loader) {
+        this.loader = loader;
+        this.loading = null;
+        this.pending = true;
+    }
+
+    /**
+     * Starts the fetch of a lazy one if that hasn't happened yet.
+     * @return a future that's done once the days are in, already done for
+     * the ones that aren't lazy
+     */
+    protected synchronized CompletableFuture<Void> loadDays() {
+        if (loading != null) {
+            return loading;
+        }
+        if (loader == null) {
+            loading = CompletableFuture.completedFuture(null);
+            return loading;
+        }
+        CompletableFuture<WeatherDaySequence> fetch;
+        try {
+            fetch = loader.get();
+        } catch (RuntimeException e) {
+            fetch = CompletableFuture.failedFuture(e);
+        }
+        loader = null;
+        loading = fetch
+                .exceptionally(e -> {
+                    System.out.println("Error while loading weather data");
+                    return WeatherDaySequence.empty();
+                })
+                .thenAccept(loaded -> {
+                    setDaySequence(loaded);
+                    pending = false;
+                });
+        return loading;
+    }
+
+    /**
+     * @return true while a lazy one's days haven't come in yet
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * @return the days so far, a lazy one that hasn't got them yet starts
+     * fetching and has none for now
+     */
+    private WeatherDaySequence current() {
+        if (pending) {
+            loadDays();
+        }
+        return this.days;
+    }
 
     /**
      * I'm not sure if we'll use this, but I'll leave it in
-     * @param weather a WeatherDay, it will be added to the end of the Queue
+     * Copies every day, so don't build a whole week with it. On a lazy one
+     * that's still pending the day is lost once the fetched days come in.
+     * @param weather a WeatherDay, it will be added to the end
      */
     public void addWeatherDay(WeatherDay weather) {
-        this.days.add(weather);
+        this.days = current().with(weather);
     }
 
-    public Queue<WeatherDay> getDayQueue() {
-        return this.days;
+    public WeatherDaySequence getDaySequence() {
+        return current();
+    }
+
+    protected void setDaySequence(WeatherDaySequence days) {
+        this.days = days != null ? days : WeatherDaySequence.empty();
     }
 
     /**
-     * All of our abstract methods
      * @param index the number of the days from startDate
-     * @return returns the WeatherDay of a numbered day in the series
+     * @return returns the WeatherDay of a numbered day in the series, null
+     * if there isn't one
      */
-    abstract WeatherDay getWeatherDay(int index);
+    public WeatherDay getWeatherDay(int index) {
+        return current().get(index);
+    }
+
+    /**
+     * @param date the day wanted
+     * @return its WeatherDay, null if it's not one of these days
+     */
+    public WeatherDay getWeatherDay(LocalDate date) {
+        return current().get(date);
+    }
+
+    /**
+     * @return how many days there are
+     */
+    public int size() {
+        return current().size();
+    }
+
     abstract JSONArray getDays();
 
     @Override
     public String toString() {
-        String result = "";
-        Iterator<WeatherDay> iterator = this.days.iterator();
-        while(iterator.hasNext()){
-            WeatherDay weather = iterator.next();
-            result = result + "\n" + weather.toString();
+        StringBuilder result = new StringBuilder();
+        for (WeatherDay weather : current()) {
+            result.append("\n").append(weather.toString());
         }
-        return result;
+        return result.toString();
     }
-}
\ No newline at end of file
+}
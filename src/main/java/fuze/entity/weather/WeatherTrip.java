@@ -4,16 +4,27 @@ import fuze.entity.location.LocationStringToCoordinate;
 import fuze.framework.weatherapi.WeatherFetcher;
 import org.json.JSONArray;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Pretty much the same as WeatherWeek except designed for a trip in a different location
  * Also extends WeatherDays
+ * Days open-meteo can't forecast yet (more than HORIZON_DAYS out) come from
+ * the ClimatologyIndex normals instead, so trips can be any length. So do
+ * the forecast days if the forecast couldn't be fetched. Either way those
+ * days are WeatherDay.isNormal(), so the UI can tell them apart.
  */
 public class WeatherTrip extends WeatherDays{
-    private Queue<WeatherDay> days;
+    /**
+     * open-meteo doesn't forecast further out than today + this.
+     */
+    private static final int HORIZON_DAYS = 15;
+
     private WeatherFetcher weatherFetcher;
     private double[] location;
     private String startDate;
@@ -22,10 +33,9 @@ public class WeatherTrip extends WeatherDays{
     /**
      * Creates an instance of WeatherTrip
      * @param locationString String of the location ie "Toronto"
-     * @param startDate String of form "yyyy-mm-dd" NOTE there will be errors if
-     *                  startDate is too far in the future
-     * @param tripLength Number of days of the trip, same applies from startDate,
-     *                   if too long, weather won't have predictions
+     * @param startDate String of form "yyyy-mm-dd"
+     * @param tripLength Number of days of the trip, days past the forecast
+     *                   get the usual weather for that time of year
      */
     public WeatherTrip(String locationString, String startDate, int tripLength) {
         LocationStringToCoordinate locationObj = new LocationStringToCoordinate(locationString);
@@ -33,41 +43,148 @@ public class WeatherTrip extends WeatherDays{
         double latitude = locationObj.getLatitude();
         this.location = new double[]{longitude, latitude};
         this.startDate = startDate;
-        this.tripLength = Math.min(tripLength, 7);
-        this.weatherFetcher = new WeatherFetcher(startDate, this.tripLength, longitude, latitude);
-        this.days = constructWeatherQueue();
+        this.tripLength = tripLength;
+        this.weatherFetcher = forecastFetcher();
+        setDaySequence(constructWeatherDays());
     }
     /**
      * Creates an instance of WeatherTrip
      * @param longitude double
      * @param latitude double
-     * @param startDate String of form "yyyy-mm-dd" NOTE there will be errors if
-     *                  startDate is too far in the future
-     * @param tripLength Number of days of the trip, same applies from startDate,
-     *                   if too long, weather won't have predictions
+     * @param startDate String of form "yyyy-mm-dd"
+     * @param tripLength Number of days of the trip, days past the forecast
+     *                   get the usual weather for that time of year
      */
     public WeatherTrip(double longitude, double latitude, String startDate, int tripLength) {
         this. location = new double[]{longitude, latitude};
         this.startDate = startDate;
-        this.tripLength = Math.min(tripLength, 6);
-        this.weatherFetcher = new WeatherFetcher(startDate, this.tripLength, longitude, latitude);
-        this.days = constructWeatherQueue();
+        this.tripLength = tripLength;
+        this.weatherFetcher = forecastFetcher();
+        setDaySequence(constructWeatherDays());
+    }
+
+    /**
+     * For lazy(), nothing is fetched yet.
+     */
+    private WeatherTrip(double[] location, String startDate, int tripLength) {
+        this.location = location;
+        this.startDate = startDate;
+        this.tripLength = tripLength;
+        setDayLoader(() -> forecastFetcherAsync().thenApply(fetcher -> {
+            this.weatherFetcher = fetcher;
+            return constructWeatherDays();
+        }));
+    }
+
+    /**
+     * Lazy version of WeatherTrip(String, String, int): returns straight
+     * away and only starts fetching the forecast the first time a day is
+     * asked for (or load() is called). It has no days until then, see
+     * WeatherDays.isPending.
+     * @param locationString String of the location ie "Toronto"
+     * @param startDate String of form "yyyy-mm-dd"
+     * @param tripLength Number of days of the trip
+     * @return a trip with no days fetched yet
+     */
+    public static WeatherTrip lazy(String locationString, String startDate,
+                                   int tripLength) {
+        LocationStringToCoordinate locationObj = new LocationStringToCoordinate(locationString);
+        return lazy(locationObj.getLongitude(), locationObj.getLatitude(),
+                startDate, tripLength);
     }
 
     /**
-     * Same as WeatherWeek
+     * Same as above with the coordinates directly.
+     */
+    public static WeatherTrip lazy(double longitude, double latitude,
+                                   String startDate, int tripLength) {
+        return new WeatherTrip(new double[]{longitude, latitude}, startDate,
+                tripLength);
+    }
+
+    /**
+     * Starts the fetch of a lazy trip (does nothing for the others), use
+     * WeatherDays.loadAll to wait on a few at once.
+     * @return future of this trip once its days are in
+     */
+    public CompletableFuture<WeatherTrip> load() {
+        return loadDays().thenApply(done -> this);
+    }
+
+    /**
+     * Only asks open-meteo for the days it can actually forecast.
+     * @return the fetcher, null if the whole trip is past the forecast
+     */
+    private WeatherFetcher forecastFetcher() {
+        int forecastDays = forecastDays();
+        if (forecastDays <= 0) {
+            return null;
+        }
+        // The fetcher counts from zero
+        return new WeatherFetcher(startDate, forecastDays - 1, location[0],
+                location[1]);
+    }
+
+    /**
+     * Same as forecastFetcher but in the background.
+     * @return future of the fetcher, or null if the whole trip is past the
+     * forecast
+     */
+    private CompletableFuture<WeatherFetcher> forecastFetcherAsync() {
+        int forecastDays = forecastDays();
+        if (forecastDays <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return WeatherFetcher.fetchAsync(startDate, forecastDays - 1,
+                location[0], location[1]);
+    }
+
+    /**
+     * @return how many of the trip's days open-meteo can forecast
+     */
+    private int forecastDays() {
+        int forecastDays = tripLength;
+        try {
+            long untilStart = ChronoUnit.DAYS.between(LocalDate.now(),
+                    LocalDate.parse(startDate));
+            forecastDays = (int) Math.min(tripLength,
+                    HORIZON_DAYS + 1 - Math.max(untilStart, 0));
+        } catch (DateTimeParseException e) {
+            // Let the API complain about it like before
+        }
+        return forecastDays;
+    }
+
+    /**
+     * Same as WeatherWeek, plus the normals for whatever the forecast
+     * didn't cover (which is every day when the fetch failed).
      * @return refer to WeatherWeek
      */
-    private Queue<WeatherDay> constructWeatherQueue(){
-        JSONArray dates = weatherFetcher.getForecastDates();
-        Queue<WeatherDay> weatherQueue = new LinkedList<>();
-        for (int i = 0; i < dates.length(); i++){
-            WeatherDay day = weatherFetcher.getWeatherByDate(dates.getString(i));
-            if (day != null) {
-                weatherQueue.add(day);
+    private WeatherDaySequence constructWeatherDays(){
+        ForecastSeries series = weatherFetcher == null ? null
+                : weatherFetcher.getForecastSeries();
+        List<WeatherDay> weatherDays = new ArrayList<>(Math.max(tripLength, 0));
+        if (series != null) {
+            for (int i = 0; i < series.size() && i < tripLength; i++){
+                weatherDays.add(series.getWeatherDay(i));
             }
         }
-        return weatherQueue;
+        LocalDate start;
+        try {
+            start = LocalDate.parse(startDate);
+        } catch (DateTimeParseException e) {
+            return WeatherDaySequence.of(weatherDays);
+        }
+        ClimatologyIndex normals = ClimatologyIndex.getDefault();
+        for (int i = weatherDays.size(); i < tripLength; i++) {
+            WeatherDay normal = normals.normalDay(location[0], location[1],
+                    start.plusDays(i));
+            if (normal == null) {
+                break;
+            }
+            weatherDays.add(normal);
+        }
+        return WeatherDaySequence.of(weatherDays);
     }
 
     public double[] getLocation() {
@@ -82,38 +199,12 @@ public class WeatherTrip extends WeatherDays{
         return startDate;
     }
 
-    @Override
-    /**
-     * BE CAREFUL AGAIN with calls to iterator so we don't have multiple references
-     * to the same instance, iterating from halfway through the loop
-     */
-    public WeatherDay getWeatherDay(int index) {
-        Iterator<WeatherDay> iterator = days.iterator();
-        int i = 0;
-        WeatherDay weather = null;
-        while(iterator.hasNext() && i <= index){
-            weather = iterator.next();
-            i ++;
-        }
-        return weather;
-    }
-
     @Override
     JSONArray getDays() {
-        return this.weatherFetcher.getForecastDates();
-    }
-
-    @Override
-    /**
-     * Same warning as above
-     */
-    public String toString() {
-        String result = "";
-        Iterator<WeatherDay> iterator = days.iterator();
-        while(iterator.hasNext()){
-            WeatherDay weather = iterator.next();
-            result = result + "\n" + weather.toString();
+        JSONArray dates = new JSONArray();
+        for (WeatherDay day : getDaySequence()) {
+            dates.put(day.getDate());
         }
-        return result;
+        return dates;
     }
 }
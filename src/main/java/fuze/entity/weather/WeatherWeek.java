@@ -5,21 +5,25 @@ import
 import fuze.framework.weatherapi.WeatherFetcher;
 import org.json.JSONArray;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.time.LocalDate;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Extends the abstract class of WeatherDays, this class organizes the WeatherDay-s
- * in a managable Queue, it also handles calls to WeatherFetcher so we don't make an
+ * in a WeatherDaySequence, it also handles calls to WeatherFetcher so we don't make an
  * API call for each individual day.
  */
 public class WeatherWeek extends WeatherDays{
-    private Queue<WeatherDay> days;
-    private WeatherFetcher weatherFetcher;
-    private Iterator<WeatherDay> iterator;
+    // Set late by lazy() weeks once their fetch is in
+    private volatile WeatherFetcher weatherFetcher;
     private double[] location;
     private String defaultLocationName;
+    private volatile boolean stale = false;
+    // Completes once a stale week got fresh data, already done for the others
+    private final CompletableFuture<WeatherWeek> revalidation =
+            new CompletableFuture<>();
 
     /**
      * Does not have any params because it uses default start date of today
@@ -30,7 +34,8 @@ public class WeatherWeek extends WeatherDays{
         location = new double[]{-79.3733, 43.7417};
         this.weatherFetcher = new WeatherFetcher();
         this.defaultLocationName = "Toronto Canada";
-        this.days = constructWeatherQueue();
+        setDaySequence(constructWeatherDays());
+        this.revalidation.complete(this);
     }
 
     public WeatherWeek(String locationString) {
@@ -40,73 +45,163 @@ public class WeatherWeek extends WeatherDays{
         this.location = new double[]{longitude, latitude};
         this.weatherFetcher = new WeatherFetcher(longitude, latitude);
         this.defaultLocationName = locationString;
-        this.days = constructWeatherQueue();
+        setDaySequence(constructWeatherDays());
+        this.revalidation.complete(this);
     }
 
     protected WeatherWeek(Queue<WeatherDay> days, String defaultLocationName) {
-        this.days = days != null ? days : new LinkedList<>();
+        setDaySequence(WeatherDaySequence.of(days));
         this.defaultLocationName = defaultLocationName;
         this.location = new double[]{0.0, 0.0};
         this.weatherFetcher = null;
+        this.revalidation.complete(this);
     }
 
+    /**
+     * For RollingForecastWindow, the days are already there.
+     * @param stale whether the window still has days to fetch, nothing is
+     *              revalidated for this week itself though
+     */
+    WeatherWeek(WeatherDaySequence days, String defaultLocationName,
+                double[] location, boolean stale) {
+        setDaySequence(days);
+        this.defaultLocationName = defaultLocationName;
+        this.location = location;
+        this.stale = stale;
+        this.revalidation.complete(this);
+    }
 
     /**
-     * Constructs the actual Queue
-     * @return a Queue of WeatherDay-s
+     * For lazy(), nothing is fetched yet.
      */
-    private Queue<WeatherDay> constructWeatherQueue(){
-        JSONArray dates = weatherFetcher.getForecastDates();
-        Queue<WeatherDay> weatherQueue = new LinkedList<>();
-        for (int i = 0; i < dates.length() - 1; i++){
-            WeatherDay day = weatherFetcher.getWeatherByDate(dates.getString(i));
-            if (day != null) {
-                weatherQueue.add(day);
-            }
-        }
-        return weatherQueue;
+    private WeatherWeek(double[] location, String defaultLocationName) {
+        this.location = location;
+        this.defaultLocationName = defaultLocationName;
+        this.revalidation.complete(this);
     }
 
-    public String getDefaultLocation() {
-        return defaultLocationName;
+    /**
+     * For staleWhileRevalidate, revalidation is completed by it.
+     */
+    private WeatherWeek(WeatherWeek held, String defaultLocationName) {
+        setDaySequence(held.getDaySequence());
+        this.defaultLocationName = defaultLocationName;
+        this.location = held.location;
+        this.stale = true;
     }
 
+    /**
+     * Lazy version of WeatherWeek(String): returns straight away and only
+     * starts fetching the forecast the first time a day is asked for (or
+     * load() is called), so a few of these can be made up front and fetched
+     * together. It has no days until then, see WeatherDays.isPending.
+     * @param locationString same as WeatherWeek(String)
+     * @return a week with no days fetched yet
+     */
+    public static WeatherWeek lazy(String locationString) {
+        LocationStringToCoordinate locationObj = new LocationStringToCoordinate(locationString);
+        double longitude = locationObj.getLongitude();
+        double latitude = locationObj.getLatitude();
+        WeatherWeek week = new WeatherWeek(new double[]{longitude, latitude},
+                locationString);
+        // Same 6 days as WeatherFetcher(longitude, latitude)
+        week.setDayLoader(() -> WeatherFetcher.fetchAsync(
+                        LocalDate.now().toString(), 6, longitude, latitude)
+                .thenApply(fetcher -> {
+                    week.weatherFetcher = fetcher;
+                    return week.constructWeatherDays();
+                }));
+        return week;
+    }
 
-    @Override
     /**
-     * Make sure WE are careful about using iterator calls so we're not starting loops halfway
+     * Starts the fetch of a lazy week (does nothing for the others), use
+     * WeatherDays.loadAll to wait on a few at once.
+     * @return future of this week once its days are in
      */
-    public WeatherDay getWeatherDay(int index) {
-        Iterator<WeatherDay> iterator = days.iterator();
-        int i = 0;
-        WeatherDay weather = null;
-        while(iterator.hasNext() && i <= index){
-            weather = iterator.next();
-            i ++;
-        }
-        return weather;
+    public CompletableFuture<WeatherWeek> load() {
+        return loadDays().thenApply(done -> this);
     }
 
-    @Override
-    JSONArray getDays() {
-        if (this.weatherFetcher == null) {
-            return new JSONArray();
+    /**
+     * Stale-while-revalidate version of WeatherWeek(String), goes through the
+     * location's RollingForecastWindow: returns straight away with whatever
+     * the window holds (on first use that's whatever is cached, even an old
+     * forecast, then isStale() is true) and fetches what's missing or expired
+     * in the background. When that arrives the days are swapped in and the
+     * refresh listeners run.
+     * @param locationString same as WeatherWeek(String)
+     * @return a week that may be stale (or even empty) for now
+     */
+    public static WeatherWeek staleWhileRevalidate(String locationString) {
+        return staleWhileRevalidate(RollingForecastWindow.forLocation(locationString),
+                locationString, LocalDate.now());
+    }
+
+    static WeatherWeek staleWhileRevalidate(RollingForecastWindow window,
+                                            String locationString,
+                                            LocalDate today) {
+        WeatherWeek held = window.getWeek(today);
+        if (!held.isStale()) {
+            return new WeatherWeek(held.getDaySequence(), locationString,
+                    held.location, false);
         }
-        return this.weatherFetcher.getForecastDates();
+        WeatherWeek week = new WeatherWeek(held, locationString);
+        window.refresh(today).whenComplete((fresh, error) -> {
+            if (fresh != null) {
+                week.setDaySequence(fresh.getDaySequence());
+                // Still stale if the provider only had saved data for us
+                week.stale = fresh.isStale();
+            } else {
+                System.out.println("Could not refresh the forecast for " + locationString);
+            }
+            week.revalidation.complete(week);
+        });
+        return week;
+    }
+
+    /**
+     * @return true while the days are from an old cached forecast (or some
+     * are missing) and a fresh one is still being fetched (or couldn't be)
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Runs listener once the background revalidation is done (right away if
+     * there's nothing to revalidate). It runs on whatever thread finished
+     * the fetch, so Swing code should invokeLater from it.
+     * @param listener gets this week, check isStale() to see if it worked
+     */
+    public void addRefreshListener(Consumer<WeatherWeek> listener) {
+        revalidation.thenAccept(listener);
     }
 
+
     /**
-     * Highlight above comment^^^^
-     * @return a string representation
+     * Constructs the actual days, every one the forecast has
+     * @return a WeatherDaySequence of WeatherDay-s
      */
+    private WeatherDaySequence constructWeatherDays(){
+        ForecastSeries series = weatherFetcher.getForecastSeries();
+        return WeatherDaySequence.fromSeries(series,
+                series == null ? 0 : series.size());
+    }
+
+    public String getDefaultLocation() {
+        return defaultLocationName;
+    }
+
+
     @Override
-    public String toString() {
-        String result = "";
-        Iterator<WeatherDay> iterator = days.iterator();
-        while(iterator.hasNext()){
-            WeatherDay weather = iterator.next();
-            result = result + "\n" + weather.toString();
+    JSONArray getDays() {
+        // Not from the fetcher, lazy weeks and the ones from a
+        // RollingForecastWindow don't have one
+        JSONArray dates = new JSONArray();
+        for (WeatherDay day : getDaySequence()) {
+            dates.put(day.getDate());
         }
-        return result;
+        return dates;
     }
 }
@@ -0,0 +1,107 @@
+package fuze.framework.gui;
+
+import fuze.entity.location.CitySearchIndex;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.util.List;
+
+/**
+ * Turns a location JComboBox into a type-ahead one: while typing, the list
+ * is swapped for CitySearchIndex suggestions (typos included) instead of
+ * every city there is. The suggestions wait until typing pauses for
+ * DEBOUNCE_MS, so a fast typist doesn't get a new list on every key.
+ */
+public final class CityAutoComplete {
+    private static final int DEBOUNCE_MS = 200;
+
+    private final JComboBox<String> box;
+    private final JTextComponent editor;
+    private final CitySearchIndex index;
+    private final Timer debounce;
+    private boolean adjusting = false;
+    private String lastQuery;
+
+    private CityAutoComplete(JComboBox<String> box, CitySearchIndex index) {
+        this.box = box;
+        this.index = index;
+        this.editor = (JTextComponent) box.getEditor().getEditorComponent();
+        this.debounce = new Timer(DEBOUNCE_MS, e -> showSuggestions());
+        this.debounce.setRepeats(false);
+    }
+
+    /**
+     * Makes box editable and hooks the suggestions up to its text field.
+     * @param box a dropdown of city names
+     * @return the autocomplete, so action listeners on box can check
+     * isAdjusting()
+     */
+    public static CityAutoComplete install(JComboBox<String> box) {
+        box.setEditable(true);
+        CityAutoComplete autoComplete =
+                new CityAutoComplete(box, CitySearchIndex.getDefault());
+        autoComplete.editor.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                autoComplete.textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                autoComplete.textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Only attributes changed
+            }
+        });
+        return autoComplete;
+    }
+
+    /**
+     * Swapping the suggestions in makes the box fire action events that
+     * aren't the user picking anything, listeners should skip those.
+     * @return true while the suggestions are being swapped in
+     */
+    public boolean isAdjusting() {
+        return adjusting;
+    }
+
+    private void textChanged() {
+        if (adjusting) {
+            return;
+        }
+        // Runs later on the Swing thread, which also keeps the model from
+        // being swapped while the document is notifying
+        debounce.restart();
+    }
+
+    private void showSuggestions() {
+        String text = editor.getText();
+        if (adjusting || !editor.isFocusOwner() || text.equals(lastQuery)) {
+            return;
+        }
+        lastQuery = text;
+        List<String> suggestions = index.suggest(text, CitySearchIndex.MAX_SUGGESTIONS);
+        adjusting = true;
+        try {
+            DefaultComboBoxModel<String> model =
+                    new DefaultComboBoxModel<>(suggestions.toArray(new String[0]));
+            // Keeps what was typed instead of jumping to the first suggestion
+            model.setSelectedItem(text);
+            box.setModel(model);
+            editor.setText(text);
+            editor.setCaretPosition(text.length());
+            if (suggestions.isEmpty()) {
+                box.hidePopup();
+            } else {
+                box.showPopup();
+            }
+        } finally {
+            adjusting = false;
+        }
+    }
+}
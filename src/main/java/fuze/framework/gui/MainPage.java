@@ -8,8 +8,10 @@ import fuze.interfaceadapter.UploadClothingPresenter;
 import fuze.usecases.managewardrobe.WardrobeRepository;
 import fuze.framework.data.JsonWardrobeRepository;
 import fuze.entity.location.LocationStringToCoordinate;
+import fuze.entity.plan.WeekPlan;
 import fuze.entity.weather.WeatherDay;
 import fuze.entity.weather.WeatherWeek;
+import fuze.framework.weatherapi.ForecastPrefetcher;
 import fuze.usecases.generateoutfit.OutfitCreator;
 import fuze.usecases.planweekly.WeeklyPlannerInteractor;
 import fuze.usecases.planweekly.WeeklyPlanner;
@@ -34,6 +36,7 @@ public class MainPage extends JFrame {
     private JLabel temperatureLabel;
     private final WardrobeRepository wardrobeRepository;
     private WeatherWeek currentWeek;
+    private WeekPlan currentPlan;
     private String currentLocation;
     private final OutfitCreator outfitCreator = new OutfitCreator();
     private final LocationStringToCoordinate locationTranslator;
@@ -56,6 +59,9 @@ public class MainPage extends JFrame {
         this.weeklyPlannerInteractor = new WeeklyPlannerInteractor(wardrobeRepository, outfitCreator);
 
         initUi();
+        // Keeps this city (and the ones picked later) warm in the background,
+        // the prefetcher itself is started by fuze.app.Main
+        prefetchCurrentLocation();
     }
 
     private void initUi() {
@@ -85,11 +91,20 @@ public class MainPage extends JFrame {
         locationDropdown = new JComboBox<>(buildLocationOptions(defaultLoc));
         locationDropdown.setSelectedItem(defaultLoc);
         locationDropdown.setMaximumSize(new Dimension(250, 32));
+        CityAutoComplete autoComplete = CityAutoComplete.install(locationDropdown);
         panel.add(locationDropdown);
 
         locationDropdown.addActionListener(e -> {
+            // Suggestions being swapped in while typing aren't a pick
+            if (autoComplete.isAdjusting()) {
+                return;
+            }
             String selected = Objects.toString(locationDropdown.getSelectedItem(), "Toronto Canada");
+            if (selected.equals(currentLocation) && currentWeek != null) {
+                return;
+            }
             currentLocation = selected;
+            prefetchCurrentLocation();
             reloadWeatherForCurrentLocation();
         });
 
@@ -168,17 +183,18 @@ public class MainPage extends JFrame {
 
     public void loadFromWeatherWeek(WeatherWeek week) {
         this.currentWeek = week;
-        if (this.currentWeek != null) {
-            weeklyPlannerInteractor.generateOutfitsForWeek(this.currentWeek);
-        }
+        this.currentPlan = weeklyPlannerInteractor.generateOutfitsForWeek(week);
         WeatherDay today = week != null ? week.getWeatherDay(0) : null;
         String loc = week != null ? safe(week.getDefaultLocation()) : "Unknown";
+        if (week != null && week.isStale()) {
+            loc = loc + " (cached)";
+        }
         currentLocationLabel.setText(loc);
 
         if (today != null) {
             double avg = (today.getTemperatureHigh() + today.getTemperatureLow()) / 2.0;
             temperatureLabel.setText(Math.round(avg) + "°");
-            renderOutfit(today.getOutfit());
+            renderOutfit(currentPlan.getOutfit(0));
         } else {
             temperatureLabel.setText("--°");
             renderOutfit(null);
@@ -266,14 +282,30 @@ public class MainPage extends JFrame {
     }
 
     private void refreshOutfits() {
-        currentWeek = new WeatherWeek(currentLocation);
-        weeklyPlannerInteractor.generateOutfitsForWeek(currentWeek);
-        loadFromWeatherWeek(currentWeek);
+        reloadWeatherForCurrentLocation();
     }
 
+    /**
+     * The only way this page gets its forecast, so the refresh button and
+     * picking a city can't show different ones. Whatever the city's window
+     * holds (the cached forecast the first time) is drawn right away, then
+     * the days it's missing or that expired are fetched in the background
+     * and redrawn, unless the city changed meanwhile. If that fails the
+     * week stays marked as cached.
+     */
     private void reloadWeatherForCurrentLocation() {
-        WeatherWeek week = new WeatherWeek(currentLocation);
+        WeatherWeek week = WeatherWeek.staleWhileRevalidate(currentLocation);
         loadFromWeatherWeek(week);
+        week.addRefreshListener(fresh -> SwingUtilities.invokeLater(() -> {
+            if (currentWeek == fresh) {
+                loadFromWeatherWeek(fresh);
+            }
+        }));
+    }
+
+    private void prefetchCurrentLocation() {
+        LocationStringToCoordinate coordinate = new LocationStringToCoordinate(currentLocation);
+        ForecastPrefetcher.getShared().setCurrentLocation(coordinate.getLongitude(), coordinate.getLatitude());
     }
 
     private void openTripPlanner() {
@@ -290,12 +322,19 @@ public class MainPage extends JFrame {
     }
 
     private void openWeeklyPlanner() {
-        WeeklyPlanner planner = new WeeklyPlanner();
-        if (currentWeek == null) {
-            currentWeek = new WeatherWeek(currentLocation);
+        if (currentWeek != null) {
+            showWeeklyPlanner();
+            return;
         }
-        weeklyPlannerInteractor.generateOutfitsForWeek(currentWeek);
-        planner.setWeatherWeek(currentWeek);
+        WeatherWeek.lazy(currentLocation).load().thenAccept(week -> SwingUtilities.invokeLater(() -> {
+            loadFromWeatherWeek(week);
+            showWeeklyPlanner();
+        }));
+    }
+
+    private void showWeeklyPlanner() {
+        WeeklyPlanner planner = new WeeklyPlanner();
+        planner.setWeekPlan(currentPlan);
         planner.setVisible(true);
     }
 
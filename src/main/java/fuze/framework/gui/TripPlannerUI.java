@@ -2,7 +2,10 @@ package fuze.framework.gui;
 
 import fuze.entity.clothing.ClothingArticle;
 import fuze.entity.clothing.Outfit;
+import fuze.entity.location.LocationStringToCoordinate;
+import fuze.entity.plan.DayPlan;
 import fuze.entity.weather.WeatherDay;
+import fuze.framework.weatherapi.ForecastPrefetcher;
 import fuze.usecases.trippacking.TripPlannerInteractor;
 
 import javax.swing.*;
@@ -79,10 +82,23 @@ public class TripPlannerUI extends JFrame {
                 LocalDate[] dates = service.validateDates(startField.getText(), endField.getText());
                 int days = Integer.parseInt(outfitsNeededDropdown.getSelectedItem().toString());
 
-                List<WeatherDay> list =
-                        service.generateTripPlan(loc, dates[0], days);
-
-                renderCards(list);
+                // Fetched off the Swing thread so the window doesn't freeze
+                generateButton.setEnabled(false);
+                service.generateTripPlanAsync(loc, dates[0], days)
+                        .whenComplete((list, error) -> SwingUtilities.invokeLater(() -> {
+                            generateButton.setEnabled(true);
+                            if (error != null) {
+                                JOptionPane.showMessageDialog(this, error.getMessage(), "Error",
+                                        JOptionPane.ERROR_MESSAGE);
+                                return;
+                            }
+                            renderCards(list);
+                        }));
+
+                // Keep this trip's forecast warm until it's over
+                LocationStringToCoordinate destination = new LocationStringToCoordinate(loc);
+                ForecastPrefetcher.getShared().addTrip(destination.getLongitude(),
+                        destination.getLatitude(), dates[0], days);
 
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -104,6 +120,7 @@ public class TripPlannerUI extends JFrame {
         form.add(label("Location:"));
         locationDropdown = new JComboBox<>(buildLocationOptions());
         locationDropdown.setMaximumSize(new Dimension(250, 32));
+        CityAutoComplete.install(locationDropdown);
         form.add(locationDropdown);
 
         form.add(Box.createVerticalStrut(10));
@@ -135,13 +152,13 @@ public class TripPlannerUI extends JFrame {
 
 
 
-    private void renderCards(List<WeatherDay> days) {
+    private void renderCards(List<DayPlan> days) {
         daysPanel.removeAll();
         daysPanel.setLayout(new GridLayout(1, days.size()));
 
         int index = 1;
-        for (WeatherDay d : days) {
-            daysPanel.add(buildDayCard(d, d.getDate(), index++));
+        for (DayPlan d : days) {
+            daysPanel.add(buildDayCard(d.getDay(), d.getOutfit(), d.getDate(), index++));
         }
 
         daysPanel.revalidate();
@@ -190,7 +207,7 @@ public class TripPlannerUI extends JFrame {
         }
         return panel;
     }
-    private JPanel buildDayCard(WeatherDay day, String date, int index) {
+    private JPanel buildDayCard(WeatherDay day, Outfit outfit, String date, int index) {
         JPanel card = new JPanel(new BorderLayout(4, 4));
         card.setBorder(BorderFactory.createTitledBorder(new LineBorder(Color.GRAY), "Day " + index));
 
@@ -203,9 +220,15 @@ public class TripPlannerUI extends JFrame {
             tempText = Math.round(avg) + "°";
         }
         header.add(new JLabel("Avg temp: " + tempText));
+        if (day != null && day.isNormal()) {
+            // Past the forecast, or the forecast couldn't be fetched
+            JLabel normalHint = new JLabel("Usual weather, not a forecast");
+            normalHint.setFont(normalHint.getFont().deriveFont(Font.ITALIC, 11f));
+            header.add(normalHint);
+        }
         card.add(header, BorderLayout.NORTH);
 
-        card.add(buildOutfitPanel(day != null ? day.getOutfit() : null), BorderLayout.CENTER);
+        card.add(buildOutfitPanel(outfit), BorderLayout.CENTER);
         return card;
     }
     private String[] buildLocationOptions() {
@@ -1,5 +1,6 @@
 package fuze.framework.gui;
 
+import fuze.entity.location.CityGazetteer;
 import fuze.usecases.viewweather.ViewWeather;
 import fuze.entity.weather.WeatherDay;
 import fuze.framework.weatherapi.WeatherFetcher;
@@ -9,6 +10,7 @@ import java.awt.*;
 import java.time.LocalDate;
 
 public class WeatherGUI extends JFrame {
+    private static final double NEAR_KM = 100;
 
     private JTextField latField;
     private JTextField lonField;
@@ -59,6 +61,8 @@ public class WeatherGUI extends JFrame {
             day = f.getWeatherByDate(LocalDate.now().toString());
         } else {
             try {
+                // Nearby coordinates already share a cached forecast through
+                // the forecast grid, so these are used as typed
                 double latitude = Double.parseDouble(latText);
                 double longitude = Double.parseDouble(lonText);
 
@@ -82,11 +86,34 @@ public class WeatherGUI extends JFrame {
                         "Weather: " + day.getWeather() + "\n" +
                         "High: " + day.getTemperatureHigh() + "°C\n" +
                         "Low: " + day.getTemperatureLow() + "°C\n" +
-                        "Location: lon=" + day.getLocation()[0] +
-                        ", lat=" + day.getLocation()[1] + "\n"
+                        "Location: " + locationText(day, latText, lonText) + "\n" +
+                        "Near: " + nearestCityName(day) + "\n"
         );
     }
 
+    /**
+     * What the user typed if they typed anything, otherwise where the
+     * forecast is for.
+     */
+    private String locationText(WeatherDay day, String latText, String lonText) {
+        if (!latText.isEmpty() && !lonText.isEmpty()) {
+            return "lon=" + lonText + ", lat=" + latText;
+        }
+        if (!day.hasLocation()) {
+            return "-";
+        }
+        return "lon=" + day.getLongitude() + ", lat=" + day.getLatitude();
+    }
+
+    private String nearestCityName(WeatherDay day) {
+        if (!day.hasLocation()) {
+            return "-";
+        }
+        CityGazetteer cities = CityGazetteer.getDefault();
+        int city = cities.nearest(day.getLatitude(), day.getLongitude(), NEAR_KM);
+        return city >= 0 ? cities.getName(city) : "-";
+    }
+
     public static void main(String[] args) {
         new WeatherGUI();
     }
@@ -1,109 +1,298 @@
 package fuze.framework.weatherapi;
 
+import fuze.entity.weather.ForecastSeries;
+
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
-import org.json.JSONObject;
 /**
- * A class to handle all interactions with the API, contains only one method
- * which returns a JSONObject.
+ * A class to handle all interactions with the API, every read returns a
+ * ForecastSeries (or a future of one for the async versions).
+ * All readers share one long-lived HttpClient so connections (and the TLS
+ * handshake) get reused between calls instead of being set up every time.
  */
 public class APIReader {
+    /**
+     * Shared client, HTTP/2 when open-meteo offers it which lets concurrent
+     * requests multiplex over the same connection.
+     */
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * System property for how long one request, body included, may take
+     * before it fails with a timeout, in milliseconds.
+     */
+    public static final String TIMEOUT_PROPERTY = "fuze.weather.timeoutMillis";
+    private static final long DEFAULT_TIMEOUT_MILLIS = 8000;
+
+    /**
+     * Most locations we put in one request, open-meteo takes comma separated
+     * lists but the URL can't grow forever.
+     */
+    public static final int MAX_LOCATIONS_PER_REQUEST = 100;
+
+    /**
+     * System property to point every APIReader somewhere else than
+     * open-meteo, e.g. an OpenMeteoStubServer for load tests.
+     */
+    public static final String BASE_URL_PROPERTY = "fuze.weather.baseUrl";
+    private static final String DEFAULT_BASE_URL = "https://api.open-meteo.com";
+
+    private final String baseUrl;
+
+    /**
+     * Reads from open-meteo, or BASE_URL_PROPERTY if it's set.
+     */
+    public APIReader() {
+        this(System.getProperty(BASE_URL_PROPERTY, DEFAULT_BASE_URL));
+    }
+
+    /**
+     * @param baseUrl scheme, host and port of an open-meteo compatible
+     *                server, e.g. "http://localhost:8080"
+     */
+    public APIReader(final String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/")
+                ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
     /**
      * @param longitude is a double representing the geographical longitude
      * @param latitude is a double representing the geographical latitude
      * @param startDate is a string for the starting forecast day in
      *                  "YYYY-MM-DD"
-     * @return JSONObject with all the returns from open-meteo, this includes a
-     * "time" string format for each day
-     * "temperature_2m_max" showing the maximum temperature of each day
-     * "temperature_2m_min" showing the minimum temperature of each day
-     * "weather_code" uses WMO code which I had to look up and I suggest
-     * you do too
-     * @throws IOException if incorrect inputs for open-meteo
+     * @return the forecast open-meteo returned, the highs, lows and WMO
+     * weather code (which I had to look up and I suggest you do too) of each
+     * day
+     * @throws IOException if incorrect inputs for open-meteo, or the request
+     * or its reply failed
      * @throws InterruptedException if interrupted request
      */
 
-    public JSONObject readAPI(final double longitude, final double latitude,
-                              String startDate)
+    public ForecastSeries readAPI(final double longitude,
+                                  final double latitude, String startDate)
             throws IOException, InterruptedException {
-        String endDate;
-        try {
-            // No simple way to get end date and didn't want to do one request
-            // at a time, so wrote this work around.
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-            Calendar c = Calendar.getInstance();
-            c.setTime(sdf.parse(startDate));
-            c.add(Calendar.DATE, 7);
-            endDate = sdf.format(c.getTime());
-        } catch (ParseException e) {
-            // If failed to find a valid endDate, it will default to the start
-            // date, meaning a returned JSONObject with the weather data for
-            // just one day.
-            endDate = startDate;
-        }
-        String url = String.format(
-                "https://api.open-meteo.com/v1/forecast?latitude=%f&longitude="
-                        + "%f&daily=temperature_2m_max&daily=weather_code,"
-                        + "temperature_2m_min"
-                        + "&timezone=auto&start_date=%s&end_date=%s",
-                latitude, longitude, startDate, endDate
-        );
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .GET()
-                .build();
-        try {
-            HttpResponse<String> response = client.send(request,
-                    HttpResponse.BodyHandlers.ofString());
-            return new JSONObject(response.body());
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
-        }
-        return null;
+        return readAPI(longitude, latitude, startDate, 7);
     }
 
     // Same function but allows you to tweak number of days which is usually 7,
     // but this allows for more through the week
-    public JSONObject readAPI(final double longitude, final double latitude,
-                              final String startDate, final int numDays)
+    public ForecastSeries readAPI(final double longitude,
+                                  final double latitude,
+                                  final String startDate, final int numDays)
             throws IOException, InterruptedException {
-        String endDate;
+        ForecastSeries forecast;
         try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-            Calendar c = Calendar.getInstance();
-            c.setTime(sdf.parse(startDate));
-            c.add(Calendar.DATE, numDays);
-            endDate = sdf.format(c.getTime());
-        } catch (ParseException e) {
-            endDate = startDate;
+            forecast = readForecastAsync(longitude, latitude, startDate,
+                    numDays).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Couldn't read the forecast", cause);
+        }
+        if (forecast == null) {
+            throw new IOException("open-meteo had no forecast for "
+                    + latitude + ", " + longitude + " from " + startDate);
+        }
+        return forecast;
+    }
+
+    /**
+     * Same as readAPI but doesn't hold the calling thread (please don't block
+     * the Swing thread on the network). Several of these can be in flight at
+     * once and they'll share the client's connections.
+     * The body is decoded with ForecastDecoder straight into the forecast's
+     * arrays, no String or JSONObject of it is ever made.
+     * @param longitude see readAPI
+     * @param latitude see readAPI
+     * @param startDate see readAPI
+     * @param numDays number of days after startDate to include
+     * @return a future of the decoded forecast, null if open-meteo replied
+     * with an error
+     */
+    public CompletableFuture<ForecastSeries> readForecastAsync(
+            final double longitude, final double latitude,
+            final String startDate, final int numDays) {
+        HttpRequest request = newRequest(buildUrl(formatCoordinate(latitude),
+                formatCoordinate(longitude), startDate,
+                endDate(startDate, numDays)));
+        return send(request).thenApply(response -> decode(response.body(),
+                1).get(0));
+    }
+
+    /**
+     * Reads the forecast for many locations with as few requests as
+     * possible, MAX_LOCATIONS_PER_REQUEST at a time (the chunks are sent at
+     * the same time).
+     * @param longitudes longitude of each location
+     * @param latitudes latitude of each location, same order as longitudes
+     * @param startDate see readAPI
+     * @param numDays see readForecastAsync
+     * @return a future of one forecast per location in the same order as
+     * the inputs (null for any location open-meteo had nothing for)
+     */
+    public CompletableFuture<List<ForecastSeries>> readForecastBatch(
+            final double[] longitudes, final double[] latitudes,
+            final String startDate, final int numDays) {
+        if (longitudes.length != latitudes.length) {
+            throw new IllegalArgumentException(
+                    "Need as many longitudes as latitudes");
         }
-        String url = String.format(
-                "https://api.open-meteo.com/v1/forecast?latitude=%f&longitude="
-                        + "%f&daily=temperature_2m_max&daily=weather_code,"
-                        + "temperature_2m_min"
-                        + "&timezone=auto&start_date=%s&end_date=%s",
-                latitude, longitude, startDate, endDate
-        );
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
+        String endDate = endDate(startDate, numDays);
+        List<CompletableFuture<List<ForecastSeries>>> chunks =
+                new ArrayList<>();
+        for (int from = 0; from < longitudes.length;
+             from += MAX_LOCATIONS_PER_REQUEST) {
+            int to = Math.min(from + MAX_LOCATIONS_PER_REQUEST,
+                    longitudes.length);
+            chunks.add(readChunk(Arrays.copyOfRange(longitudes, from, to),
+                    Arrays.copyOfRange(latitudes, from, to),
+                    startDate, endDate));
+        }
+        return CompletableFuture.allOf(
+                chunks.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<ForecastSeries> all =
+                            new ArrayList<>(longitudes.length);
+                    for (CompletableFuture<List<ForecastSeries>> chunk
+                            : chunks) {
+                        all.addAll(chunk.join());
+                    }
+                    return all;
+                });
+    }
+
+    private CompletableFuture<List<ForecastSeries>> readChunk(
+            final double[] longitudes, final double[] latitudes,
+            final String startDate, final String endDate) {
+        StringBuilder lats = new StringBuilder();
+        StringBuilder lons = new StringBuilder();
+        for (int i = 0; i < longitudes.length; i++) {
+            if (i > 0) {
+                lats.append(',');
+                lons.append(',');
+            }
+            lats.append(formatCoordinate(latitudes[i]));
+            lons.append(formatCoordinate(longitudes[i]));
+        }
+        HttpRequest request = newRequest(buildUrl(lats.toString(),
+                lons.toString(), startDate, endDate));
+        return send(request).thenApply(response -> decode(response.body(),
+                longitudes.length));
+    }
+
+    /**
+     * open-meteo answers a multi location request with an array of the usual
+     * objects, but with a plain object when there was only one location (or
+     * when the whole request failed).
+     * @return exactly expected entries, padded with nulls
+     */
+    private static List<ForecastSeries> decode(final byte[] body,
+                                                final int expected) {
+        long started = System.nanoTime();
+        try (Reader reader = new InputStreamReader(
+                new ByteArrayInputStream(body), StandardCharsets.UTF_8)) {
+            List<ForecastSeries> result = ForecastDecoder.decodeAll(reader);
+            WeatherMetrics.getShared().recordDecode(
+                    System.nanoTime() - started, body.length);
+            if (result.size() == 1 && expected > 1) {
+                // One object back for many locations is an error reply
+                result.set(0, null);
+            }
+            while (result.size() < expected) {
+                result.add(null);
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends on the shared client and reports how long it took (until the
+     * whole body is in) and whether it failed to WeatherMetrics.
+     * The body is read into a byte array by the client itself, so reading it
+     * can't tie up whatever thread decodes it, and the future fails once
+     * the timeout is up even if the body is still trickling in (the request
+     * timeout alone only covers getting the headers).
+     */
+    private static CompletableFuture<HttpResponse<byte[]>> send(
+            final HttpRequest request) {
+        long started = System.nanoTime();
+        return CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(timeoutMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> WeatherMetrics.getShared()
+                        .recordRequest(System.nanoTime() - started,
+                                error != null
+                                        || response.statusCode() >= 400));
+    }
+
+    /**
+     * Every request gets a deadline, so a slow open-meteo fails the future
+     * instead of holding it until the OS gives up.
+     */
+    private static HttpRequest newRequest(final String url) {
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMillis()))
                 .GET()
                 .build();
+    }
+
+    private static long timeoutMillis() {
+        return Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    private static String endDate(final String startDate, final int numDays) {
         try {
-            HttpResponse<String> response = client.send(request,
-                    HttpResponse.BodyHandlers.ofString());
-            return new JSONObject(response.body());
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
+            return LocalDate.parse(startDate).plusDays(numDays).toString();
+        } catch (DateTimeParseException e) {
+            // If failed to find a valid endDate, it will default to the start
+            // date, meaning a returned forecast with the weather data for
+            // just one day.
+            return startDate;
         }
-        return null;
     }
-}
\ No newline at end of file
+
+    private static String formatCoordinate(final double value) {
+        // Locale.ROOT so the coordinates always use '.' as the separator
+        return String.format(Locale.ROOT, "%f", value);
+    }
+
+    private String buildUrl(final String latitudes, final String longitudes,
+                            final String startDate, final String endDate) {
+        return baseUrl + "/v1/forecast?latitude=" + latitudes
+                + "&longitude=" + longitudes
+                + "&daily=temperature_2m_max&daily=weather_code,"
+                + "temperature_2m_min"
+                + "&timezone=auto&start_date=" + startDate
+                + "&end_date=" + endDate;
+    }
+}
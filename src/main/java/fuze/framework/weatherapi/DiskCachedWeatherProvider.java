@@ -0,0 +1,87 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Puts a ForecastStore (the JSON files or the snapshot file) in front of
+ * another provider: fresh forecasts come off the disk and whatever the other
+ * provider fetches gets written back.
+ */
+public class DiskCachedWeatherProvider implements WeatherProvider {
+    private final WeatherProvider delegate;
+    private final ForecastStore cache;
+
+    /**
+     * @param delegate where forecasts come from on a cache miss
+     * @param cache the store to use
+     */
+    public DiskCachedWeatherProvider(final WeatherProvider delegate,
+                                     final ForecastStore cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public CompletableFuture<ForecastSeries> fetch(final double longitude,
+                                                   final double latitude,
+                                                   final String startDate,
+                                                   final int forecastDays) {
+        ForecastKey key = new ForecastKey(longitude, latitude, startDate,
+                forecastDays);
+        ForecastSeries cached = cache.get(key);
+        WeatherMetrics.getShared().recordDiskCache(cached != null);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return delegate.fetch(longitude, latitude, startDate, forecastDays)
+                .thenApply(series -> {
+                    cache.put(key, series);
+                    return series;
+                });
+    }
+
+    /**
+     * Only the locations missing from the disk go to the other provider, as
+     * one batch.
+     */
+    @Override
+    public CompletableFuture<List<ForecastSeries>> fetchBatch(
+            final double[] longitudes, final double[] latitudes,
+            final String startDate, final int forecastDays) {
+        ForecastSeries[] result = new ForecastSeries[longitudes.length];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < longitudes.length; i++) {
+            result[i] = cache.get(new ForecastKey(longitudes[i], latitudes[i],
+                    startDate, forecastDays));
+            WeatherMetrics.getShared().recordDiskCache(result[i] != null);
+            if (result[i] == null) {
+                missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(result));
+        }
+        double[] lons = new double[missing.size()];
+        double[] lats = new double[missing.size()];
+        for (int j = 0; j < missing.size(); j++) {
+            lons[j] = longitudes[missing.get(j)];
+            lats[j] = latitudes[missing.get(j)];
+        }
+        return delegate.fetchBatch(lons, lats, startDate, forecastDays)
+                .thenApply(fetched -> {
+                    for (int j = 0; j < missing.size(); j++) {
+                        ForecastSeries series = j < fetched.size()
+                                ? fetched.get(j) : null;
+                        cache.put(new ForecastKey(lons[j], lats[j], startDate,
+                                forecastDays), series);
+                        result[missing.get(j)] = series;
+                    }
+                    return Arrays.asList(result);
+                });
+    }
+}
@@ -0,0 +1,110 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves recorded open-meteo responses from a folder instead of the network.
+ * For a location it reads "lat_lon.json" (two decimals, e.g.
+ * "43.65_-79.38.json") and otherwise "default.json". Any saved open-meteo
+ * reply works, including the files in ~/.fuzewardrobe/forecasts.
+ * The recorded days are replayed starting at whatever date is asked for
+ * (looping if the recording is shorter), so the same fixture always gives the
+ * same forecast whatever day the test runs.
+ */
+public class FixtureWeatherProvider implements WeatherProvider {
+    private static final String DEFAULT_FIXTURE = "default.json";
+
+    private final Path folder;
+    /**
+     * Each fixture is only read once, then served from here.
+     */
+    private final Map<String, ForecastSeries> loaded =
+            new ConcurrentHashMap<>();
+
+    /**
+     * @param folder where the recorded responses are
+     */
+    public FixtureWeatherProvider(final Path folder) {
+        this.folder = folder;
+    }
+
+    @Override
+    public CompletableFuture<ForecastSeries> fetch(final double longitude,
+                                                   final double latitude,
+                                                   final String startDate,
+                                                   final int forecastDays) {
+        String name = String.format(Locale.ROOT, "%.2f_%.2f.json", latitude,
+                longitude);
+        ForecastSeries recorded = read(name);
+        if (recorded == null) {
+            recorded = read(DEFAULT_FIXTURE);
+        }
+        if (recorded == null || recorded.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        LocalDate start;
+        try {
+            start = LocalDate.parse(startDate);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.completedFuture(
+                replay(recorded, longitude, latitude, start, forecastDays));
+    }
+
+    private ForecastSeries read(final String name) {
+        ForecastSeries cached = loaded.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Path file = folder.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            ForecastSeries series = ForecastDecoder.decode(reader);
+            if (series != null) {
+                loaded.put(name, series);
+            }
+            return series;
+        } catch (IOException e) {
+            System.out.println("Could not read weather fixture " + file);
+            return null;
+        }
+    }
+
+    /**
+     * Same end date rule as APIReader: the range includes startDate +
+     * forecastDays.
+     */
+    private static ForecastSeries replay(final ForecastSeries recorded,
+                                         final double longitude,
+                                         final double latitude,
+                                         final LocalDate start,
+                                         final int forecastDays) {
+        int days = Math.max(forecastDays, 0) + 1;
+        double[] highs = new double[days];
+        double[] lows = new double[days];
+        int[] codes = new int[days];
+        for (int i = 0; i < days; i++) {
+            int from = i % recorded.size();
+            highs[i] = recorded.getHigh(from);
+            lows[i] = recorded.getLow(from);
+            codes[i] = recorded.getWeatherCode(from);
+        }
+        return new ForecastSeries(longitude, latitude, start, highs, lows,
+                codes);
+    }
+}
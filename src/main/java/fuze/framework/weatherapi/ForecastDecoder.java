@@ -0,0 +1,532 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads an open-meteo daily forecast response in one pass, straight into a
+ * ForecastSeries' arrays. Unlike new JSONObject(body) it never builds the
+ * whole JSON tree (or even the body as one String), anything that isn't one
+ * of the fields we use gets skipped as it goes by.
+ * Works for a single location ({...}) and for several ([{...}, {...}]).
+ * encode() writes a series back out in the same layout (for the disk cache).
+ */
+final class ForecastDecoder {
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+        1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    /**
+     * Up to this many digits the mantissa is exact in a double, so dividing
+     * by a power of ten rounds the same way Double.parseDouble does.
+     */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final StringBuilder text = new StringBuilder(32);
+
+    private ForecastDecoder(final Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * @param in the response body
+     * @return the forecast of the first (usually only) location, null if the
+     * response was an error
+     * @throws IOException if reading fails or it isn't valid JSON
+     */
+    static ForecastSeries decode(final Reader in) throws IOException {
+        List<ForecastSeries> all = decodeAll(in);
+        return all.isEmpty() ? null : all.get(0);
+    }
+
+    /**
+     * @param in the response body
+     * @return one entry per location in the response, null entries for
+     * locations open-meteo had no forecast for
+     * @throws IOException if reading fails or it isn't valid JSON
+     */
+    static List<ForecastSeries> decodeAll(final Reader in)
+            throws IOException {
+        ForecastDecoder decoder = new ForecastDecoder(in);
+        List<ForecastSeries> result = new ArrayList<>();
+        int c = decoder.nextToken();
+        if (c == '[') {
+            if (decoder.peekToken() == ']') {
+                decoder.next();
+                return result;
+            }
+            do {
+                decoder.expect('{');
+                result.add(decoder.readForecast());
+                c = decoder.nextToken();
+            } while (c == ',');
+            if (c != ']') {
+                throw decoder.error("']'");
+            }
+        } else if (c == '{') {
+            result.add(decoder.readForecast());
+        } else {
+            throw decoder.error("'{' or '['");
+        }
+        return result;
+    }
+
+    /**
+     * Reads one location's object, the '{' has already been read.
+     */
+    private ForecastSeries readForecast() throws IOException {
+        double longitude = Double.NaN;
+        double latitude = Double.NaN;
+        boolean failed = false;
+        LocalDate[] dates = new LocalDate[0];
+        double[] highs = new double[0];
+        double[] lows = new double[0];
+        int[] codes = new int[0];
+        boolean hasDaily = false;
+
+        if (peekToken() == '}') {
+            next();
+            return null;
+        }
+        int c;
+        do {
+            String key = readKey();
+            switch (key) {
+                case "latitude":
+                    latitude = readNumber();
+                    break;
+                case "longitude":
+                    longitude = readNumber();
+                    break;
+                case "error":
+                    failed = peekToken() == 't';
+                    skipValue();
+                    break;
+                case "daily":
+                    hasDaily = true;
+                    expect('{');
+                    if (peekToken() == '}') {
+                        next();
+                        break;
+                    }
+                    int d;
+                    do {
+                        String field = readKey();
+                        switch (field) {
+                            case "time":
+                                dates = readDates();
+                                break;
+                            case "temperature_2m_max":
+                                highs = readNumbers();
+                                break;
+                            case "temperature_2m_min":
+                                lows = readNumbers();
+                                break;
+                            case "weather_code":
+                                codes = toCodes(readNumbers());
+                                break;
+                            default:
+                                skipValue();
+                        }
+                        d = nextToken();
+                    } while (d == ',');
+                    if (d != '}') {
+                        throw error("'}'");
+                    }
+                    break;
+                default:
+                    skipValue();
+            }
+            c = nextToken();
+        } while (c == ',');
+        if (c != '}') {
+            throw error("'}'");
+        }
+        if (failed || !hasDaily || dates.length == 0) {
+            return null;
+        }
+        // Every column needs a value for every day, and the series can only
+        // hold consecutive days. open-meteo never breaks either, so if it
+        // happens the reply is wrong and shouldn't be half used
+        if (highs.length != dates.length || lows.length != dates.length
+                || codes.length != dates.length) {
+            throw new IOException("Daily arrays have different lengths: "
+                    + dates.length + " days, " + highs.length + " highs, "
+                    + lows.length + " lows, " + codes.length + " codes");
+        }
+        for (int i = 1; i < dates.length; i++) {
+            if (!dates[i].equals(dates[0].plusDays(i))) {
+                throw new IOException("Days aren't consecutive at "
+                        + dates[i]);
+            }
+        }
+        return new ForecastSeries(longitude, latitude, dates[0], highs, lows,
+                codes);
+    }
+
+    /**
+     * @param series any forecast
+     * @return the series in open-meteo's own layout, so it can be read back
+     * with decode()
+     */
+    static String encode(final ForecastSeries series) {
+        int n = series.size();
+        StringBuilder sb = new StringBuilder(64 + n * 48);
+        sb.append("{\"latitude\":").append(series.getLatitude())
+                .append(",\"longitude\":").append(series.getLongitude())
+                .append(",\"daily\":{\"time\":[");
+        for (int i = 0; i < n; i++) {
+            sb.append(i > 0 ? ",\"" : "\"").append(series.getDate(i))
+                    .append('"');
+        }
+        sb.append("],\"temperature_2m_max\":[");
+        for (int i = 0; i < n; i++) {
+            appendNumber(sb.append(i > 0 ? "," : ""), series.getHigh(i));
+        }
+        sb.append("],\"temperature_2m_min\":[");
+        for (int i = 0; i < n; i++) {
+            appendNumber(sb.append(i > 0 ? "," : ""), series.getLow(i));
+        }
+        sb.append("],\"weather_code\":[");
+        for (int i = 0; i < n; i++) {
+            sb.append(i > 0 ? "," : "").append(series.getWeatherCode(i));
+        }
+        return sb.append("]}}").toString();
+    }
+
+    private static void appendNumber(final StringBuilder sb,
+                                     final double value) {
+        if (Double.isNaN(value)) {
+            sb.append("null");
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private String readKey() throws IOException {
+        expect('"');
+        readStringBody();
+        expect(':');
+        return text.toString();
+    }
+
+    private LocalDate[] readDates() throws IOException {
+        expect('[');
+        LocalDate[] dates = new LocalDate[16];
+        int n = 0;
+        if (peekToken() == ']') {
+            next();
+            return new LocalDate[0];
+        }
+        int c;
+        do {
+            expect('"');
+            readStringBody();
+            if (n == dates.length) {
+                dates = Arrays.copyOf(dates, n * 2);
+            }
+            dates[n++] = parseDate(text);
+            c = nextToken();
+        } while (c == ',');
+        if (c != ']') {
+            throw error("']'");
+        }
+        return Arrays.copyOf(dates, n);
+    }
+
+    /**
+     * Missing values (null) come back as NaN.
+     */
+    private double[] readNumbers() throws IOException {
+        expect('[');
+        double[] values = new double[16];
+        int n = 0;
+        if (peekToken() == ']') {
+            next();
+            return new double[0];
+        }
+        int c;
+        do {
+            if (n == values.length) {
+                values = Arrays.copyOf(values, n * 2);
+            }
+            values[n++] = readNumber();
+            c = nextToken();
+        } while (c == ',');
+        if (c != ']') {
+            throw error("']'");
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    private static int[] toCodes(final double[] values) {
+        int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            // Same as JSONArray.optInt, a missing code counts as 0
+            codes[i] = Double.isNaN(values[i]) ? 0 : (int) values[i];
+        }
+        return codes;
+    }
+
+    private LocalDate parseDate(final CharSequence s) throws IOException {
+        try {
+            if (s.length() == 10 && s.charAt(4) == '-'
+                    && s.charAt(7) == '-') {
+                return LocalDate.of(digits(s, 0, 4), digits(s, 5, 7),
+                        digits(s, 8, 10));
+            }
+            return LocalDate.parse(s);
+        } catch (DateTimeException e) {
+            throw new IOException("Unexpected forecast JSON, bad date "
+                    + s, e);
+        }
+    }
+
+    private static int digits(final CharSequence s, final int from,
+                              final int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DateTimeException("Not a date: " + s);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Reads a number (or null, which gives NaN) without going through a
+     * String for the usual short decimals.
+     */
+    private double readNumber() throws IOException {
+        int c = peekToken();
+        if (c == 'n') {
+            expectLiteral("null");
+            return Double.NaN;
+        }
+        text.setLength(0);
+        boolean negative = false;
+        long mantissa = 0;
+        int digitCount = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        boolean simple = true;
+        if (c == '-') {
+            negative = true;
+            text.append((char) next());
+            c = peek();
+        }
+        while (c != -1) {
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digitCount++;
+                if (inFraction) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else if (c == 'e' || c == 'E' || c == '+' || c == '-') {
+                simple = false;
+            } else {
+                break;
+            }
+            text.append((char) next());
+            c = peek();
+        }
+        if (digitCount == 0 || inFraction && fractionDigits == 0) {
+            throw error("a number");
+        }
+        if (!simple || digitCount > MAX_FAST_DIGITS) {
+            try {
+                return Double.parseDouble(text.toString());
+            } catch (NumberFormatException e) {
+                throw error("a number, not " + text);
+            }
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads the rest of a string into text, the opening quote has already
+     * been read.
+     */
+    private void readStringBody() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                throw error("end of string");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                int e = next();
+                switch (e) {
+                    case 'b':
+                        text.append('\b');
+                        break;
+                    case 'f':
+                        text.append('\f');
+                        break;
+                    case 'n':
+                        text.append('\n');
+                        break;
+                    case 'r':
+                        text.append('\r');
+                        break;
+                    case 't':
+                        text.append('\t');
+                        break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(next(), 16);
+                            if (digit < 0) {
+                                throw error("4 hex digits after \\u");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        text.append((char) code);
+                        break;
+                    default:
+                        text.append((char) e);
+                }
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = nextToken();
+        switch (c) {
+            case '"':
+                readStringBody();
+                break;
+            case '{':
+                if (peekToken() == '}') {
+                    next();
+                    break;
+                }
+                do {
+                    readKey();
+                    skipValue();
+                    c = nextToken();
+                } while (c == ',');
+                if (c != '}') {
+                    throw error("'}'");
+                }
+                break;
+            case '[':
+                if (peekToken() == ']') {
+                    next();
+                    break;
+                }
+                do {
+                    skipValue();
+                    c = nextToken();
+                } while (c == ',');
+                if (c != ']') {
+                    throw error("']'");
+                }
+                break;
+            case 't':
+                position--;
+                expectLiteral("true");
+                break;
+            case 'f':
+                position--;
+                expectLiteral("false");
+                break;
+            case 'n':
+                position--;
+                expectLiteral("null");
+                break;
+            default:
+                position--;
+                readNumber();
+        }
+    }
+
+    private void expectLiteral(final String literal) throws IOException {
+        skipWhitespace();
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) {
+                throw error(literal);
+            }
+        }
+    }
+
+    private void expect(final char expected) throws IOException {
+        if (nextToken() != expected) {
+            throw error("'" + expected + "'");
+        }
+    }
+
+    /**
+     * @return the next character that isn't whitespace, consuming it
+     */
+    private int nextToken() throws IOException {
+        skipWhitespace();
+        return next();
+    }
+
+    /**
+     * @return the next character that isn't whitespace, without consuming it
+     */
+    private int peekToken() throws IOException {
+        skipWhitespace();
+        return peek();
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            position++;
+            c = peek();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private IOException error(final String expected) {
+        return new IOException("Unexpected forecast JSON, expected "
+                + expected);
+    }
+}
@@ -0,0 +1,174 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Keeps forecasts on disk (one small JSON file per ForecastKey, under
+ * ~/.fuzewardrobe/forecasts next to the wardrobe) so the same forecast isn't
+ * requested again while it's still fresh. Files use open-meteo's own layout
+ * so they are read back with ForecastDecoder, and the file's modified time
+ * is when the forecast was fetched.
+ */
+public class ForecastDiskCache implements ForecastStore {
+    /**
+     * System property to change how long forecasts stay fresh, in minutes.
+     */
+    public static final String TTL_PROPERTY = "fuze.forecast.ttlMinutes";
+    private static final long DEFAULT_TTL_MINUTES = 30;
+    /**
+     * System property for the folder the files go in, defaults to
+     * ~/.fuzewardrobe/forecasts.
+     */
+    public static final String DIRECTORY_PROPERTY = "fuze.forecast.cacheDir";
+
+    private static final ForecastDiskCache DEFAULT = new ForecastDiskCache(
+            System.getProperty(DIRECTORY_PROPERTY) != null
+                    ? Paths.get(System.getProperty(DIRECTORY_PROPERTY))
+                    : Paths.get(System.getProperty("user.home"),
+                            ".fuzewardrobe", "forecasts"),
+            Duration.ofMinutes(Long.getLong(TTL_PROPERTY,
+                    DEFAULT_TTL_MINUTES)));
+
+    private final Path directory;
+    private volatile Duration timeToLive;
+
+    /**
+     * @param directory folder the cached forecasts get written to
+     * @param timeToLive how long a cached forecast counts as fresh
+     */
+    public ForecastDiskCache(final Path directory, final Duration timeToLive) {
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * @return the cache WeatherFetcher uses, in the user's home folder
+     */
+    public static ForecastDiskCache getDefault() {
+        return DEFAULT;
+    }
+
+    @Override
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(final Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * @param key which forecast
+     * @return the cached response, or null if there is none or it's older
+     * than the time to live
+     */
+    @Override
+    public ForecastSeries get(final ForecastKey key) {
+        return read(key, timeToLive.toMillis());
+    }
+
+    /**
+     * Same as get but however old the entry is, for when the network is down
+     * and an old forecast beats no forecast.
+     * @param key which forecast
+     * @return the last forecast stored for key, null if there never was one
+     */
+    @Override
+    public ForecastSeries getStale(final ForecastKey key) {
+        return read(key, Long.MAX_VALUE);
+    }
+
+    /**
+     * The newest forecast stored for a place, whatever dates it was for. Used
+     * to draw something straight away while a fresh one is fetched.
+     * @param key the place (its dates are ignored)
+     * @return the most recently written forecast for it, null if none
+     */
+    @Override
+    public ForecastSeries getLatest(final ForecastKey key) {
+        String prefix = String.format(Locale.ROOT, "%.2f_%.2f_",
+                key.getLatitude(), key.getLongitude());
+        Path newest = null;
+        long newestTime = Long.MIN_VALUE;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                prefix + "*.json")) {
+            for (Path file : files) {
+                long time = Files.getLastModifiedTime(file).toMillis();
+                if (time > newestTime) {
+                    newest = file;
+                    newestTime = time;
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        if (newest == null) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(newest,
+                StandardCharsets.UTF_8)) {
+            return ForecastDecoder.decode(reader);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private ForecastSeries read(final ForecastKey key, final long maxAge) {
+        Path file = fileFor(key);
+        try {
+            long age = System.currentTimeMillis()
+                    - Files.getLastModifiedTime(file).toMillis();
+            if (age < 0 || age > maxAge) {
+                return null;
+            }
+            try (Reader reader = Files.newBufferedReader(file,
+                    StandardCharsets.UTF_8)) {
+                return ForecastDecoder.decode(reader);
+            }
+        } catch (Exception e) {
+            // No file, or a broken one, is the same as no cache
+            return null;
+        }
+    }
+
+    /**
+     * Stores a forecast, null (no forecast) is ignored.
+     * @param key which forecast
+     * @param forecast the decoded forecast
+     */
+    @Override
+    public void put(final ForecastKey key, final ForecastSeries forecast) {
+        if (forecast == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            // Write then move, so another window reading the same entry never
+            // sees half a file
+            Path temp = Files.createTempFile(directory, key.toFileName(),
+                    ".tmp");
+            Files.writeString(temp, ForecastDecoder.encode(forecast), StandardCharsets.UTF_8);
+            Files.move(temp, fileFor(key),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Caching is best effort, the forecast itself is still fine
+            System.out.println("Could not cache forecast " + key);
+        }
+    }
+
+    private Path fileFor(final ForecastKey key) {
+        return directory.resolve(key.toFileName() + ".json");
+    }
+}
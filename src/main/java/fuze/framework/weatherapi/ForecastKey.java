@@ -0,0 +1,96 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.location.GridCell;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Identifies one forecast request: a location (snapped to its forecast
+ * GridCell, so every place that would get the same forecast lands on the
+ * same entry) and the date range asked for. Used as the key of the forecast
+ * caches.
+ */
+public final class ForecastKey {
+    private final GridCell cell;
+    private final String startDate;
+    private final int forecastDays;
+
+    /**
+     * @param longitude lon double
+     * @param latitude lat double
+     * @param startDate "yyyy-mm-dd" like everywhere else
+     * @param forecastDays number of days after startDate
+     */
+    public ForecastKey(final double longitude, final double latitude,
+                       final String startDate, final int forecastDays) {
+        this.cell = GridCell.of(longitude, latitude);
+        this.startDate = startDate;
+        this.forecastDays = forecastDays;
+    }
+
+    /**
+     * @return lon of the grid point, what actually gets requested
+     */
+    public double getLongitude() {
+        return cell.getLongitude();
+    }
+
+    /**
+     * @return lat of the grid point, what actually gets requested
+     */
+    public double getLatitude() {
+        return cell.getLatitude();
+    }
+
+    public GridCell getCell() {
+        return cell;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public int getForecastDays() {
+        return forecastDays;
+    }
+
+    /**
+     * @return a key for just the (snapped) location, whatever the dates
+     */
+    public ForecastKey location() {
+        return new ForecastKey(getLongitude(), getLatitude(), null, 0);
+    }
+
+    /**
+     * @return a name that is safe to use for a file on any OS
+     */
+    public String toFileName() {
+        return String.format(Locale.ROOT, "%.2f_%.2f_%s_%d",
+                getLatitude(), getLongitude(), startDate, forecastDays);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ForecastKey)) {
+            return false;
+        }
+        ForecastKey other = (ForecastKey) o;
+        return cell.equals(other.cell)
+                && forecastDays == other.forecastDays
+                && Objects.equals(startDate, other.startDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cell, startDate, forecastDays);
+    }
+
+    @Override
+    public String toString() {
+        return toFileName();
+    }
+}
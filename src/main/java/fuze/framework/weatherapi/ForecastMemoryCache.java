@@ -0,0 +1,263 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide, size limited (least recently used goes first) cache of
+ * forecasts that have already been read. If a forecast is already being
+ * fetched when someone else asks for it, they get the same future instead of
+ * a second request going out, so the main page, weekly planner and trip
+ * planner asking for one city at once only costs one fetch.
+ */
+public class ForecastMemoryCache {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private static final ForecastMemoryCache SHARED = new ForecastMemoryCache(
+            DEFAULT_CAPACITY,
+            ForecastDiskCache.getDefault().getTimeToLive());
+
+    private final int capacity;
+    private final Duration timeToLive;
+    private final Map<ForecastKey, CachedForecast> entries;
+    private final Map<ForecastKey, CompletableFuture<ForecastSeries>>
+            inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param capacity max number of forecasts kept
+     * @param timeToLive how long a forecast stays usable
+     */
+    public ForecastMemoryCache(final int capacity, final Duration timeToLive) {
+        this.capacity = capacity;
+        this.timeToLive = timeToLive;
+        // access order = true makes this an LRU
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<ForecastKey, CachedForecast> eldest) {
+                return size() > ForecastMemoryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the cache shared by every WeatherFetcher
+     */
+    public static ForecastMemoryCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Gives back the cached forecast, joins a fetch that's already running
+     * for the same key, or otherwise starts one with the loader.
+     * @param key which forecast
+     * @param loader starts the actual fetch, a null or stale result is not
+     *               cached
+     * @return future of the forecast (null if the loader found nothing)
+     */
+    public CompletableFuture<ForecastSeries> getOrLoad(
+            final ForecastKey key,
+            final Supplier<CompletableFuture<ForecastSeries>> loader) {
+        ForecastSeries cached = get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<ForecastSeries> mine = new CompletableFuture<>();
+        CompletableFuture<ForecastSeries> running = inFlight.putIfAbsent(key,
+                mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return running;
+        }
+        // Someone may have finished loading between the get and putIfAbsent
+        cached = get(key);
+        if (cached != null) {
+            inFlight.remove(key, mine);
+            hits.incrementAndGet();
+            mine.complete(cached);
+            return mine;
+        }
+
+        misses.incrementAndGet();
+        CompletableFuture<ForecastSeries> load;
+        try {
+            load = loader.get();
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((data, error) -> finish(key, mine, data, error));
+        return mine;
+    }
+
+    /**
+     * getOrLoad for many keys at once: everything cached or already being
+     * fetched is reused, and the rest is loaded with a single call to the
+     * loader (e.g. one batch request instead of one request per key).
+     * A key that's in the list twice is only loaded once.
+     * @param keys which forecasts
+     * @param loader given the indexes (into keys) of the forecasts that
+     *               have to be fetched, in order, starts fetching them all.
+     *               Its list has one forecast per index in the same order,
+     *               missing or null ones count as not found. Not called if
+     *               nothing needs fetching
+     * @return one future per key, same order as keys
+     */
+    public List<CompletableFuture<ForecastSeries>> getOrLoadAll(
+            final List<ForecastKey> keys,
+            final Function<List<Integer>,
+                    CompletableFuture<List<ForecastSeries>>> loader) {
+        List<CompletableFuture<ForecastSeries>> results = new ArrayList<>();
+        List<Integer> claimed = new ArrayList<>();
+        List<CompletableFuture<ForecastSeries>> mine = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            ForecastKey key = keys.get(i);
+            ForecastSeries cached = get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                results.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            CompletableFuture<ForecastSeries> own = new CompletableFuture<>();
+            CompletableFuture<ForecastSeries> running = inFlight.putIfAbsent(
+                    key, own);
+            if (running != null) {
+                coalesced.incrementAndGet();
+                results.add(running);
+                continue;
+            }
+            cached = get(key);
+            if (cached != null) {
+                inFlight.remove(key, own);
+                hits.incrementAndGet();
+                own.complete(cached);
+            } else {
+                misses.incrementAndGet();
+                claimed.add(i);
+                mine.add(own);
+            }
+            results.add(own);
+        }
+        if (claimed.isEmpty()) {
+            return results;
+        }
+
+        CompletableFuture<List<ForecastSeries>> load;
+        try {
+            load = loader.apply(List.copyOf(claimed));
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((list, error) -> {
+            for (int j = 0; j < claimed.size(); j++) {
+                ForecastSeries data = error == null && list != null
+                        && j < list.size() ? list.get(j) : null;
+                finish(keys.get(claimed.get(j)), mine.get(j), data, error);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Caches a load that's done and hands it to everyone waiting on it.
+     */
+    private void finish(final ForecastKey key,
+                        final CompletableFuture<ForecastSeries> mine,
+                        final ForecastSeries data, final Throwable error) {
+        // A stale fallback is passed on but not kept, the next request
+        // should try for a fresh one
+        if (error == null && data != null && !data.isStale()) {
+            put(key, data);
+        }
+        inFlight.remove(key, mine);
+        if (error != null) {
+            mine.completeExceptionally(error);
+        } else {
+            mine.complete(data);
+        }
+    }
+
+    /**
+     * @param key which forecast
+     * @return the forecast if it's cached and still fresh, otherwise null
+     */
+    public synchronized ForecastSeries get(final ForecastKey key) {
+        CachedForecast entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.loadedAt
+                > timeToLive.toMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.data;
+    }
+
+    public synchronized void put(final ForecastKey key,
+                                 final ForecastSeries data) {
+        entries.put(key, new CachedForecast(data, System.currentTimeMillis()));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return number of requests answered straight from memory
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of requests that had to start a fetch
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of requests that joined a fetch already in progress
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ForecastMemoryCache size=" + size()
+                + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount()
+                + ", coalesced=" + getCoalescedCount();
+    }
+
+    private static final class CachedForecast {
+        private final ForecastSeries data;
+        private final long loadedAt;
+
+        private CachedForecast(final ForecastSeries data, final long loadedAt) {
+            this.data = data;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package fuze.framework.weatherapi;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the forecasts the user is likely to look at next warm in the
+ * background: the current location, the last few cities picked in the
+ * dropdown and the destinations of upcoming trips. Every few minutes (give
+ * or take some jitter so the app doesn't hit open-meteo in lockstep) it
+ * fetches them all as batches, so switching city reads a cached answer
+ * instead of waiting on the network on the Swing thread.
+ */
+public class ForecastPrefetcher {
+    /**
+     * System property for how often to refresh, in minutes.
+     */
+    public static final String PERIOD_PROPERTY = "fuze.weather.prefetchMinutes";
+    private static final long DEFAULT_PERIOD_MINUTES = 5;
+    /**
+     * Each wait is the period +/- this fraction of it.
+     */
+    private static final double JITTER = 0.2;
+    /**
+     * Days fetched for every location, enough for the week and the two week
+     * view (the incremental provider serves shorter windows out of it).
+     */
+    private static final int LOCATION_DAYS = 14;
+    /**
+     * open-meteo doesn't forecast further out than this.
+     */
+    private static final int HORIZON_DAYS = 15;
+    private static final int MAX_RECENT = 5;
+
+    private static final ForecastPrefetcher SHARED = new ForecastPrefetcher(
+            Long.getLong(PERIOD_PROPERTY, DEFAULT_PERIOD_MINUTES)
+                    * 60_000L);
+
+    private final long periodMillis;
+    private double[] current;
+    // Keyed by location so picking the same city twice doesn't add it twice,
+    // insertion order = oldest first
+    private final Map<ForecastKey, double[]> recent = new LinkedHashMap<>();
+    // Same idea for trips, planning the same trip again replaces it
+    private final Map<ForecastKey, Trip> trips = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * A trip destination and its dates.
+     */
+    private static final class Trip {
+        private final double longitude;
+        private final double latitude;
+        private final LocalDate start;
+        private final int days;
+
+        private Trip(final double longitude, final double latitude,
+                     final LocalDate start, final int days) {
+            this.longitude = longitude;
+            this.latitude = latitude;
+            this.start = start;
+            this.days = days;
+        }
+    }
+
+    /**
+     * @param periodMillis time between refreshes, before jitter
+     */
+    public ForecastPrefetcher(final long periodMillis) {
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * @return the prefetcher the GUI registers locations with
+     */
+    public static ForecastPrefetcher getShared() {
+        return SHARED;
+    }
+
+    /**
+     * The location on the main page, the previous one becomes a recent one.
+     * @param longitude lon double
+     * @param latitude lat double
+     */
+    public synchronized void setCurrentLocation(final double longitude,
+                                                final double latitude) {
+        if (current != null) {
+            addRecentLocation(current[0], current[1]);
+        }
+        current = new double[]{longitude, latitude};
+    }
+
+    /**
+     * Only the last few are kept.
+     * @param longitude lon double
+     * @param latitude lat double
+     */
+    public synchronized void addRecentLocation(final double longitude,
+                                               final double latitude) {
+        ForecastKey place = new ForecastKey(longitude, latitude, null, 0);
+        recent.remove(place);
+        recent.put(place, new double[]{longitude, latitude});
+        Iterator<ForecastKey> oldest = recent.keySet().iterator();
+        while (recent.size() > MAX_RECENT) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Dropped again once the trip is over. Adding a trip that's already
+     * there (same place and dates) doesn't add it twice.
+     * @param longitude lon double
+     * @param latitude lat double
+     * @param start first day of the trip
+     * @param days number of days after start, like forecastDays
+     */
+    public synchronized void addTrip(final double longitude,
+                                     final double latitude,
+                                     final LocalDate start, final int days) {
+        trips.put(new ForecastKey(longitude, latitude, start.toString(),
+                days), new Trip(longitude, latitude, start, days));
+    }
+
+    /**
+     * Starts refreshing in the background (on a daemon thread so it never
+     * keeps the app open), right away and then every period. Calling it
+     * again does nothing.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "forecast-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::runAndReschedule);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Fetches everything registered once.
+     * @return future that completes when all of it is cached
+     */
+    public CompletableFuture<Void> refreshNow() {
+        LocalDate today = LocalDate.now();
+        List<double[]> locations = new ArrayList<>();
+        List<Trip> upcoming = new ArrayList<>();
+        synchronized (this) {
+            if (current != null) {
+                locations.add(current);
+            }
+            locations.addAll(recent.values());
+            trips.values().removeIf(trip -> trip.start.plusDays(trip.days)
+                    .isBefore(today));
+            upcoming.addAll(trips.values());
+        }
+
+        List<CompletableFuture<?>> work = new ArrayList<>();
+        if (!locations.isEmpty()) {
+            work.add(fetch(today, LOCATION_DAYS, locations));
+        }
+        // Trips that share dates go together as one batch
+        Map<String, List<double[]>> byDates = new LinkedHashMap<>();
+        for (Trip trip : upcoming) {
+            LocalDate start = trip.start.isBefore(today) ? today : trip.start;
+            long lastDay = ChronoUnit.DAYS.between(today,
+                    trip.start.plusDays(trip.days));
+            if (ChronoUnit.DAYS.between(today, start) > HORIZON_DAYS) {
+                // Too far out for now, maybe next time
+                continue;
+            }
+            int days = (int) Math.min(lastDay, HORIZON_DAYS)
+                    - (int) ChronoUnit.DAYS.between(today, start);
+            byDates.computeIfAbsent(start + "+" + days,
+                    k -> new ArrayList<>())
+                    .add(new double[]{trip.longitude, trip.latitude});
+        }
+        for (Map.Entry<String, List<double[]>> group : byDates.entrySet()) {
+            String[] range = group.getKey().split("\\+");
+            work.add(fetch(LocalDate.parse(range[0]),
+                    Integer.parseInt(range[1]), group.getValue()));
+        }
+        return CompletableFuture.allOf(
+                work.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private static CompletableFuture<?> fetch(final LocalDate start,
+                                              final int days,
+                                              final List<double[]> places) {
+        double[] lons = new double[places.size()];
+        double[] lats = new double[places.size()];
+        for (int i = 0; i < places.size(); i++) {
+            lons[i] = places.get(i)[0];
+            lats[i] = places.get(i)[1];
+        }
+        return WeatherFetcher.fetchBatch(start.toString(), days, lons, lats);
+    }
+
+    private void runAndReschedule() {
+        try {
+            refreshNow().get(periodMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            System.out.println("Could not prefetch forecasts");
+        }
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.schedule(this::runAndReschedule, nextDelay(),
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private long nextDelay() {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-JITTER,
+                JITTER);
+        return Math.max(1, Math.round(periodMillis * factor));
+    }
+}
@@ -0,0 +1,500 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Every cached location in one fixed size binary file that's memory-mapped,
+ * so reading a forecast is just reading a few numbers out of memory (no
+ * text, no parsing) and the file never grows however many cities get
+ * looked at: when every slot is taken the least recently written location
+ * is replaced.
+ *
+ * Layout (big endian):
+ * - file header, 32 bytes: magic, version, slot count, days per slot
+ * - slots of SLOT_SIZE bytes, each: a 32 byte header (write sequence, used
+ *   flag, location id, last write time, longitude, latitude) then
+ *   DAYS_PER_SLOT day records of 20 bytes (epoch day, high, low, weather
+ *   code, minute it was fetched). A day goes in record epochDay %
+ *   DAYS_PER_SLOT, so the slot is a ring of the most recent days.
+ *
+ * Writes happen on one background thread. Readers don't lock: the sequence
+ * number is odd while a slot is being written and readers retry if it
+ * changed under them. That only works inside one JVM, so the store also
+ * holds an exclusive lock on the file while it's open. A second copy of the
+ * app doesn't get it and isn't open (ForecastStore.getDefault then uses
+ * the JSON files instead).
+ */
+public class ForecastSnapshotStore implements ForecastStore {
+    /**
+     * System property for how many locations the file holds.
+     */
+    public static final String SLOTS_PROPERTY = "fuze.forecast.snapshotSlots";
+    /**
+     * System property for where the file is, defaults to
+     * ~/.fuzewardrobe/forecasts.bin.
+     */
+    public static final String FILE_PROPERTY = "fuze.forecast.snapshotFile";
+    private static final int DEFAULT_SLOTS = 512;
+    /**
+     * open-meteo forecasts 16 days, this leaves room for the past few.
+     */
+    static final int DAYS_PER_SLOT = 32;
+
+    private static final int MAGIC = 0x465a5753;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 32;
+    private static final int SLOT_HEADER = 32;
+    private static final int DAY_RECORD = 20;
+    private static final int SLOT_SIZE = SLOT_HEADER
+            + DAYS_PER_SLOT * DAY_RECORD;
+
+    // Slot header fields
+    private static final int SEQUENCE = 0;
+    private static final int USED = 4;
+    private static final int LOCATION = 8;
+    private static final int WRITTEN = 16;
+    private static final int LONGITUDE = 24;
+    private static final int LATITUDE = 28;
+
+    // Day record fields
+    private static final int EPOCH_DAY = 0;
+    private static final int HIGH = 4;
+    private static final int LOW = 8;
+    private static final int CODE = 12;
+    private static final int FETCHED_MINUTE = 16;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final int READ_ATTEMPTS = 16;
+
+    private static final VarHandle INTS =
+            MethodHandles.byteBufferViewVarHandle(int[].class,
+                    ByteOrder.BIG_ENDIAN);
+
+    private final MappedByteBuffer map;
+    // Kept open for as long as the store is, closing it drops the lock
+    private volatile FileChannel channel;
+    private final int slots;
+    private volatile Duration timeToLive;
+    /**
+     * Location id to slot, rebuilt from the file on startup.
+     */
+    private final Map<Long, Integer> index = new ConcurrentHashMap<>();
+    private final ExecutorService writer;
+
+    /**
+     * Opens (or creates) the file. If it can't be, or another process (or
+     * store) has it open, the store stays empty and isOpen() is false.
+     * @param file where the snapshots live
+     * @param slots how many locations fit
+     * @param timeToLive how long a stored day counts as fresh
+     */
+    public ForecastSnapshotStore(final Path file, final int slots,
+                                 final Duration timeToLive) {
+        this.slots = slots;
+        this.timeToLive = timeToLive;
+        this.map = open(file, slots);
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "forecast-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (map != null) {
+            for (int slot = 0; slot < slots; slot++) {
+                int base = slotOffset(slot);
+                if (map.getInt(base + USED) == 1) {
+                    index.put(map.getLong(base + LOCATION), slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Only opened (and locked) the first time getDefault is called, not
+     * whenever this class gets loaded.
+     */
+    private static final class DefaultHolder {
+        private static final ForecastSnapshotStore DEFAULT =
+                new ForecastSnapshotStore(defaultFile(),
+                        Integer.getInteger(SLOTS_PROPERTY, DEFAULT_SLOTS),
+                        ForecastDiskCache.getDefault().getTimeToLive());
+
+        private static Path defaultFile() {
+            String file = System.getProperty(FILE_PROPERTY);
+            return file != null ? Paths.get(file)
+                    : Paths.get(System.getProperty("user.home"),
+                            ".fuzewardrobe", "forecasts.bin");
+        }
+    }
+
+    /**
+     * @return the store in the user's home folder (or FILE_PROPERTY)
+     */
+    public static ForecastSnapshotStore getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    public boolean isOpen() {
+        return map != null && channel != null;
+    }
+
+    @Override
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(final Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * @return number of locations stored right now
+     */
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public ForecastSeries get(final ForecastKey key) {
+        return readRange(key, timeToLive.toMillis(), false);
+    }
+
+    /**
+     * Whatever days from the start date on are stored, even if not all of
+     * them are.
+     */
+    @Override
+    public ForecastSeries getStale(final ForecastKey key) {
+        return readRange(key, Long.MAX_VALUE, true);
+    }
+
+    @Override
+    public ForecastSeries getLatest(final ForecastKey key) {
+        Integer slot = index.get(locationId(key));
+        if (slot == null || map == null) {
+            return null;
+        }
+        return readConsistently(slotOffset(slot), () ->
+                readLatest(slotOffset(slot), locationId(key)));
+    }
+
+    /**
+     * Queued for the background writer, so it shows up a moment later.
+     */
+    @Override
+    public void put(final ForecastKey key, final ForecastSeries forecast) {
+        if (!isOpen() || forecast == null || forecast.isEmpty()) {
+            return;
+        }
+        long id = locationId(key);
+        long now = System.currentTimeMillis();
+        writer.execute(() -> write(id, forecast, now));
+    }
+
+    /**
+     * Writes out what's queued and lets go of the file, so another store
+     * can open it. Nothing can be read or put afterwards.
+     */
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        flush();
+        writer.shutdown();
+        index.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println("Could not close forecast snapshots");
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Waits until everything put so far is written.
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // An empty task can't fail
+        }
+    }
+
+    private MappedByteBuffer open(final Path file, final int slots) {
+        long size = FILE_HEADER + (long) slots * SLOT_SIZE;
+        FileChannel opened = null;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            opened = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Taken before anything is read, so the index built from the
+            // file stays right for as long as the lock is held
+            FileLock lock;
+            try {
+                lock = opened.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                System.out.println("Forecast snapshots " + file
+                        + " are in use by another copy of the app");
+                opened.close();
+                return null;
+            }
+            MappedByteBuffer buffer = map(opened, size, slots);
+            channel = opened;
+            return buffer;
+        } catch (IOException | UnsupportedOperationException e) {
+            System.out.println("Could not open forecast snapshots " + file);
+            if (opened != null) {
+                try {
+                    opened.close();
+                } catch (IOException closing) {
+                    // Already failing
+                }
+            }
+            return null;
+        }
+    }
+
+    private static MappedByteBuffer map(final FileChannel channel,
+                                        final long size, final int slots)
+            throws IOException {
+        boolean fresh = channel.size() != size;
+        if (fresh) {
+            channel.truncate(0);
+        }
+        MappedByteBuffer buffer = channel.map(
+                FileChannel.MapMode.READ_WRITE, 0, size);
+        if (!fresh && (buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != slots
+                || buffer.getInt(12) != DAYS_PER_SLOT)) {
+            fresh = true;
+            for (int i = 0; i < size; i += 4) {
+                buffer.putInt(i, 0);
+            }
+        }
+        if (fresh) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, slots);
+            buffer.putInt(12, DAYS_PER_SLOT);
+        }
+        return buffer;
+    }
+
+    private static long locationId(final ForecastKey key) {
+        long lat = Math.round(key.getLatitude() * 100);
+        long lon = Math.round(key.getLongitude() * 100);
+        return (lat << 32) | (lon & 0xffffffffL);
+    }
+
+    private static int slotOffset(final int slot) {
+        return FILE_HEADER + slot * SLOT_SIZE;
+    }
+
+    private static int dayOffset(final int base, final long epochDay) {
+        return base + SLOT_HEADER
+                + (int) Math.floorMod(epochDay, (long) DAYS_PER_SLOT)
+                * DAY_RECORD;
+    }
+
+    private ForecastSeries readRange(final ForecastKey key,
+                                     final long maxAgeMillis,
+                                     final boolean partial) {
+        Integer slot = index.get(locationId(key));
+        if (slot == null || map == null) {
+            return null;
+        }
+        LocalDate from;
+        try {
+            from = LocalDate.parse(key.getStartDate());
+        } catch (Exception e) {
+            return null;
+        }
+        int days = Math.min(key.getForecastDays() + 1, DAYS_PER_SLOT);
+        int base = slotOffset(slot);
+        long oldest = maxAgeMillis == Long.MAX_VALUE ? Long.MIN_VALUE
+                : (System.currentTimeMillis() - maxAgeMillis) / 60_000L;
+        return readConsistently(base, () -> readDays(base,
+                locationId(key), from.toEpochDay(), days, oldest, partial));
+    }
+
+    /**
+     * Seqlock read: retried while the writer is (or was) busy with the
+     * slot.
+     */
+    private ForecastSeries readConsistently(final int base,
+                                            final SlotReader reader) {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            int before = (int) INTS.getAcquire(map, base + SEQUENCE);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            ForecastSeries result = reader.read();
+            VarHandle.loadLoadFence();
+            if ((int) INTS.getAcquire(map, base + SEQUENCE) == before) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private interface SlotReader {
+        ForecastSeries read();
+    }
+
+    private ForecastSeries readDays(final int base, final long id,
+                                    final long firstDay, final int days,
+                                    final long oldestMinute,
+                                    final boolean partial) {
+        if (map.getInt(base + USED) != 1
+                || map.getLong(base + LOCATION) != id) {
+            return null;
+        }
+        int count = 0;
+        while (count < days) {
+            int record = dayOffset(base, firstDay + count);
+            if (map.getInt(record + EPOCH_DAY) != firstDay + count
+                    || map.getInt(record + FETCHED_MINUTE) < oldestMinute) {
+                break;
+            }
+            count++;
+        }
+        if (count == 0 || (count < days && !partial)) {
+            return null;
+        }
+        return series(base, firstDay, count);
+    }
+
+    private ForecastSeries readLatest(final int base, final long id) {
+        if (map.getInt(base + USED) != 1
+                || map.getLong(base + LOCATION) != id) {
+            return null;
+        }
+        long last = NO_DAY;
+        for (int i = 0; i < DAYS_PER_SLOT; i++) {
+            int day = map.getInt(base + SLOT_HEADER + i * DAY_RECORD
+                    + EPOCH_DAY);
+            if (day != NO_DAY && day > last) {
+                last = day;
+            }
+        }
+        if (last == NO_DAY) {
+            return null;
+        }
+        int count = 1;
+        while (count < DAYS_PER_SLOT && map.getInt(dayOffset(base,
+                last - count) + EPOCH_DAY) == last - count) {
+            count++;
+        }
+        return series(base, last - count + 1, count);
+    }
+
+    private ForecastSeries series(final int base, final long firstDay,
+                                  final int count) {
+        double[] highs = new double[count];
+        double[] lows = new double[count];
+        int[] codes = new int[count];
+        for (int i = 0; i < count; i++) {
+            int record = dayOffset(base, firstDay + i);
+            highs[i] = map.getFloat(record + HIGH);
+            lows[i] = map.getFloat(record + LOW);
+            codes[i] = map.getShort(record + CODE);
+        }
+        return new ForecastSeries(map.getFloat(base + LONGITUDE),
+                map.getFloat(base + LATITUDE),
+                LocalDate.ofEpochDay(firstDay), highs, lows, codes);
+    }
+
+    /**
+     * Only ever runs on the writer thread.
+     */
+    private void write(final long id, final ForecastSeries forecast,
+                       final long now) {
+        Integer slot = index.get(id);
+        boolean claimed = slot == null;
+        if (claimed) {
+            slot = claimSlot();
+        }
+        int base = slotOffset(slot);
+        int sequence = (int) INTS.getAcquire(map, base + SEQUENCE);
+        INTS.setRelease(map, base + SEQUENCE, sequence + 1);
+        // The release only orders the stores before it, without this the
+        // writes below could be seen before the odd sequence
+        VarHandle.storeStoreFence();
+        if (claimed) {
+            map.putInt(base + USED, 1);
+            map.putLong(base + LOCATION, id);
+            for (int i = 0; i < DAYS_PER_SLOT; i++) {
+                map.putInt(base + SLOT_HEADER + i * DAY_RECORD + EPOCH_DAY,
+                        NO_DAY);
+            }
+        }
+        map.putLong(base + WRITTEN, now);
+        map.putFloat(base + LONGITUDE, (float) forecast.getLongitude());
+        map.putFloat(base + LATITUDE, (float) forecast.getLatitude());
+        int minute = (int) (now / 60_000L);
+        // Only the last DAYS_PER_SLOT days fit
+        int first = Math.max(0, forecast.size() - DAYS_PER_SLOT);
+        long startDay = forecast.getStartDate().toEpochDay();
+        for (int i = first; i < forecast.size(); i++) {
+            int record = dayOffset(base, startDay + i);
+            map.putInt(record + EPOCH_DAY, (int) (startDay + i));
+            map.putFloat(record + HIGH, (float) forecast.getHigh(i));
+            map.putFloat(record + LOW, (float) forecast.getLow(i));
+            map.putShort(record + CODE, (short) forecast.getWeatherCode(i));
+            map.putInt(record + FETCHED_MINUTE, minute);
+        }
+        INTS.setRelease(map, base + SEQUENCE, sequence + 2);
+        index.put(id, slot);
+    }
+
+    /**
+     * @return a free slot, or the least recently written one (its location
+     * is dropped from the index first)
+     */
+    private int claimSlot() {
+        int oldest = 0;
+        long oldestWrite = Long.MAX_VALUE;
+        for (int slot = 0; slot < slots; slot++) {
+            int base = slotOffset(slot);
+            if (map.getInt(base + USED) != 1) {
+                return slot;
+            }
+            long written = map.getLong(base + WRITTEN);
+            if (written < oldestWrite) {
+                oldest = slot;
+                oldestWrite = written;
+            }
+        }
+        index.remove(map.getLong(slotOffset(oldest) + LOCATION));
+        return oldest;
+    }
+}
@@ -0,0 +1,59 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.time.Duration;
+
+/**
+ * Somewhere forecasts are kept between runs. ForecastDiskCache keeps one
+ * JSON file per request, ForecastSnapshotStore keeps every location in one
+ * fixed size memory-mapped file. Pick with
+ * -Dfuze.forecast.store=snapshot|json, see getDefault().
+ */
+public interface ForecastStore {
+    /**
+     * System property picking the store, "snapshot" (default) or "json".
+     */
+    String STORE_PROPERTY = "fuze.forecast.store";
+
+    /**
+     * @param key which forecast
+     * @return the stored forecast, null if there is none or it's older than
+     * the time to live
+     */
+    ForecastSeries get(ForecastKey key);
+
+    /**
+     * Same as get but however old it is.
+     * @param key which forecast
+     * @return the forecast, null if there never was one
+     */
+    ForecastSeries getStale(ForecastKey key);
+
+    /**
+     * @param key the place (its dates are ignored)
+     * @return the newest forecast stored for the place, null if none
+     */
+    ForecastSeries getLatest(ForecastKey key);
+
+    /**
+     * Stores a forecast, null (no forecast) is ignored.
+     * @param key which forecast
+     * @param forecast the decoded forecast
+     */
+    void put(ForecastKey key, ForecastSeries forecast);
+
+    Duration getTimeToLive();
+
+    /**
+     * @return the store the system properties ask for
+     */
+    static ForecastStore getDefault() {
+        if ("json".equalsIgnoreCase(System.getProperty(STORE_PROPERTY))) {
+            return ForecastDiskCache.getDefault();
+        }
+        ForecastSnapshotStore snapshots = ForecastSnapshotStore.getDefault();
+        // Falls back on the JSON files if the snapshot file can't be opened
+        return snapshots.isOpen() ? snapshots : ForecastDiskCache.getDefault();
+    }
+}
@@ -0,0 +1,323 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Remembers every day already fetched for a location (as one merged
+ * ForecastSeries) and only asks the other provider for the days that are
+ * missing. So the two week view right after the week view only fetches the
+ * second week, and a trip overlapping the week only fetches what's past it
+ * (or before it, or both). Only the most recently used locations are held.
+ * Stale fallbacks (ForecastSeries.isStale) are passed on but never held,
+ * so they're asked for again next time.
+ */
+public class IncrementalWeatherProvider implements WeatherProvider {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final WeatherProvider delegate;
+    private final Duration timeToLive;
+    private final int capacity;
+    // Guarded by itself
+    private final Map<ForecastKey, Held> held;
+
+    /**
+     * The days held for one location and when the oldest of them was
+     * fetched.
+     */
+    private static final class Held {
+        private final ForecastSeries series;
+        private final long fetchedAt;
+
+        private Held(final ForecastSeries series, final long fetchedAt) {
+            this.series = series;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    /**
+     * A date range that still has to be fetched for one request.
+     */
+    private static final class Missing {
+        private final LocalDate from;
+        private final int days;
+
+        private Missing(final LocalDate from, final LocalDate to) {
+            this.from = from;
+            this.days = (int) ChronoUnit.DAYS.between(from, to);
+        }
+
+        private String range() {
+            return from + "+" + days;
+        }
+    }
+
+    /**
+     * Holds up to 64 locations.
+     * @param delegate where the missing days come from
+     * @param timeToLive how long fetched days are trusted
+     */
+    public IncrementalWeatherProvider(final WeatherProvider delegate,
+                                      final Duration timeToLive) {
+        this(delegate, timeToLive, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param delegate where the missing days come from
+     * @param timeToLive how long fetched days are trusted
+     * @param capacity most locations held, least recently used go first
+     */
+    public IncrementalWeatherProvider(final WeatherProvider delegate,
+                                      final Duration timeToLive,
+                                      final int capacity) {
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+        this.capacity = capacity;
+        // access order = true makes this an LRU
+        this.held = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<ForecastKey, Held> eldest) {
+                return size() > IncrementalWeatherProvider.this.capacity;
+            }
+        };
+    }
+
+    @Override
+    public CompletableFuture<ForecastSeries> fetch(final double longitude,
+                                                   final double latitude,
+                                                   final String startDate,
+                                                   final int forecastDays) {
+        LocalDate from;
+        try {
+            from = LocalDate.parse(startDate);
+        } catch (Exception e) {
+            return delegate.fetch(longitude, latitude, startDate,
+                    forecastDays);
+        }
+        int days = Math.max(forecastDays, 0) + 1;
+        ForecastKey place = new ForecastKey(longitude, latitude, startDate,
+                forecastDays).location();
+        ForecastSeries have = current(place);
+        List<Missing> missing = missing(have, from, days);
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(have.slice(from, days));
+        }
+        List<CompletableFuture<ForecastSeries>> parts = new ArrayList<>();
+        for (Missing range : missing) {
+            parts.add(delegate.fetch(longitude, latitude,
+                    range.from.toString(), range.days));
+        }
+        return CompletableFuture.allOf(
+                parts.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<ForecastSeries> fetched = new ArrayList<>();
+                    for (CompletableFuture<ForecastSeries> part : parts) {
+                        fetched.add(part.join());
+                    }
+                    return keep(place, have, fetched, from, days);
+                });
+    }
+
+    /**
+     * Locations are grouped by the ranges they're missing, and each group
+     * goes to the other provider as one batch.
+     */
+    @Override
+    public CompletableFuture<List<ForecastSeries>> fetchBatch(
+            final double[] longitudes, final double[] latitudes,
+            final String startDate, final int forecastDays) {
+        LocalDate from;
+        try {
+            from = LocalDate.parse(startDate);
+        } catch (Exception e) {
+            return delegate.fetchBatch(longitudes, latitudes, startDate,
+                    forecastDays);
+        }
+        int days = Math.max(forecastDays, 0) + 1;
+        ForecastSeries[] result = new ForecastSeries[longitudes.length];
+        ForecastSeries[] have = new ForecastSeries[longitudes.length];
+        ForecastKey[] places = new ForecastKey[longitudes.length];
+        // What each location got back, the groups can answer on different
+        // threads so each list is guarded by itself
+        List<List<ForecastSeries>> fetched = new ArrayList<>();
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        Map<String, Missing> ranges = new LinkedHashMap<>();
+        for (int i = 0; i < longitudes.length; i++) {
+            places[i] = new ForecastKey(longitudes[i], latitudes[i],
+                    startDate, forecastDays).location();
+            have[i] = current(places[i]);
+            fetched.add(new ArrayList<>());
+            List<Missing> missing = missing(have[i], from, days);
+            if (missing.isEmpty()) {
+                result[i] = have[i].slice(from, days);
+            }
+            for (Missing range : missing) {
+                groups.computeIfAbsent(range.range(), r -> new ArrayList<>())
+                        .add(i);
+                ranges.putIfAbsent(range.range(), range);
+            }
+        }
+
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<Integer> members = group.getValue();
+            Missing missing = ranges.get(group.getKey());
+            double[] lons = new double[members.size()];
+            double[] lats = new double[members.size()];
+            for (int j = 0; j < members.size(); j++) {
+                lons[j] = longitudes[members.get(j)];
+                lats[j] = latitudes[members.get(j)];
+            }
+            requests.add(delegate.fetchBatch(lons, lats,
+                            missing.from.toString(), missing.days)
+                    .thenAccept(answers -> {
+                        for (int j = 0; j < members.size(); j++) {
+                            List<ForecastSeries> mine =
+                                    fetched.get(members.get(j));
+                            synchronized (mine) {
+                                mine.add(j < answers.size()
+                                        ? answers.get(j) : null);
+                            }
+                        }
+                    }));
+        }
+        return CompletableFuture.allOf(
+                requests.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    for (int i = 0; i < result.length; i++) {
+                        List<ForecastSeries> mine = fetched.get(i);
+                        synchronized (mine) {
+                            if (!mine.isEmpty()) {
+                                result[i] = keep(places[i], have[i], mine,
+                                        from, days);
+                            }
+                        }
+                    }
+                    return Arrays.asList(result);
+                });
+    }
+
+    /**
+     * Forgets everything held, e.g. when the provider behind this changes.
+     */
+    public void clear() {
+        synchronized (held) {
+            held.clear();
+        }
+    }
+
+    /**
+     * @return how many locations are held right now
+     */
+    public int size() {
+        synchronized (held) {
+            return held.size();
+        }
+    }
+
+    /**
+     * @return the days held for a place, null if none or they're too old
+     */
+    private ForecastSeries current(final ForecastKey place) {
+        synchronized (held) {
+            Held entry = held.get(place);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.fetchedAt
+                    > timeToLive.toMillis()) {
+                held.remove(place);
+                return null;
+            }
+            return entry.series;
+        }
+    }
+
+    /**
+     * @return the ranges that still have to be fetched for days days from
+     * from: none if have covers all of it, the days before and/or after
+     * what have covers, or all of it if have doesn't overlap
+     */
+    private static List<Missing> missing(final ForecastSeries have,
+                                         final LocalDate from,
+                                         final int days) {
+        LocalDate to = from.plusDays(days - 1L);
+        if (have == null || have.isEmpty()) {
+            return List.of(new Missing(from, to));
+        }
+        List<Missing> missing = new ArrayList<>(2);
+        LocalDate haveStart = have.getStartDate();
+        LocalDate haveEnd = have.getEndDate();
+        if (from.isBefore(haveStart)) {
+            LocalDate end = haveStart.minusDays(1);
+            missing.add(new Missing(from, to.isBefore(end) ? to : end));
+        }
+        if (to.isAfter(haveEnd)) {
+            LocalDate start = haveEnd.plusDays(1);
+            missing.add(new Missing(from.isAfter(start) ? from : start, to));
+        }
+        return missing;
+    }
+
+    /**
+     * Merges newly fetched days into what's held for the place. Stale
+     * fallbacks only fill in the answer, they aren't held.
+     * @return the days of the request that are now available, null if none
+     */
+    private ForecastSeries keep(final ForecastKey place,
+                                final ForecastSeries have,
+                                final List<ForecastSeries> fetched,
+                                final LocalDate from, final int days) {
+        ForecastSeries all = have;
+        List<ForecastSeries> fallbacks = new ArrayList<>();
+        for (ForecastSeries piece : fetched) {
+            if (piece == null || piece.isEmpty()) {
+                continue;
+            }
+            if (piece.isStale()) {
+                fallbacks.add(piece);
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            Held merged;
+            synchronized (held) {
+                merged = held.merge(place, new Held(piece, now),
+                        (old, added) -> {
+                            // A gap means the old days are dropped
+                            if (!old.series.touches(added.series)) {
+                                return added;
+                            }
+                            ForecastSeries joined =
+                                    old.series.mergedWith(added.series);
+                            return new Held(joined, joined == added.series
+                                    ? added.fetchedAt : old.fetchedAt);
+                        });
+            }
+            all = merged.series;
+        }
+        for (ForecastSeries old : fallbacks) {
+            // Fresh days win where both have one, a fallback that doesn't
+            // reach them can't be joined on
+            if (all == null) {
+                all = old;
+            } else if (old.touches(all)) {
+                all = old.mergedWith(all);
+            }
+        }
+        if (all == null) {
+            return null;
+        }
+        ForecastSeries wanted = all.slice(from, days);
+        return wanted.isEmpty() ? null : wanted;
+    }
+}
@@ -0,0 +1,368 @@
+package fuze.framework.weatherapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for open-meteo, for load testing the real HTTP code path
+ * without touching the real service. It answers the part of /v1/forecast
+ * that APIReader uses: comma separated latitude/longitude lists (one object
+ * back for one location, an array for several), the daily= fields
+ * temperature_2m_max, temperature_2m_min and weather_code, and
+ * start_date/end_date. The weather is made up but always the same for the
+ * same place and day. Latency and failed requests can be injected.
+ * Start it with main() (or from a test) and point the app at it with
+ * -Dfuze.weather.baseUrl=http://localhost:PORT.
+ */
+public class OpenMeteoStubServer {
+    private static final int[] CODES = {0, 1, 2, 3, 45, 51, 61, 63, 80, 95};
+    /**
+     * open-meteo's default when no dates are given.
+     */
+    private static final int DEFAULT_DAYS = 7;
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final Random random;
+    private volatile long latencyMillis = 0;
+    private volatile long jitterMillis = 0;
+    private volatile double errorRate = 0;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    /**
+     * @param port port to listen on, 0 for any free one
+     * @param threads how many requests are answered at once (injected
+     *                latency holds a thread)
+     * @param seed seed for the latency jitter and injected errors, so runs
+     *             can be repeated
+     * @throws IOException if the port can't be opened
+     */
+    public OpenMeteoStubServer(final int port, final int threads,
+                               final long seed) throws IOException {
+        this.server = HttpServer.create(
+                new InetSocketAddress("localhost", port), 0);
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "open-meteo-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.random = new Random(seed);
+        server.setExecutor(workers);
+        server.createContext("/v1/forecast", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    /**
+     * @return what to give APIReader or BASE_URL_PROPERTY
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @param latency added to every response
+     * @param jitter plus a random extra between 0 and this
+     */
+    public void setLatency(final Duration latency, final Duration jitter) {
+        this.latencyMillis = latency.toMillis();
+        this.jitterMillis = jitter.toMillis();
+    }
+
+    /**
+     * @param errorRate fraction of requests (0 to 1) answered with a 500
+     */
+    public void setErrorRate(final double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            long delay;
+            boolean fail;
+            synchronized (random) {
+                delay = latencyMillis + (jitterMillis > 0
+                        ? (long) (random.nextDouble() * jitterMillis) : 0);
+                fail = random.nextDouble() < errorRate;
+            }
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (fail) {
+                injectedErrors.incrementAndGet();
+                reply(exchange, 500, error("Injected error"));
+                return;
+            }
+            reply(exchange, 200, forecast(parseQuery(
+                    exchange.getRequestURI().getRawQuery())));
+        } catch (IllegalArgumentException e) {
+            reply(exchange, 400, error(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reply(exchange, 503, error("Shutting down"));
+        }
+    }
+
+    private static void reply(final HttpExchange exchange, final int status,
+                              final String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String error(final String reason) {
+        return "{\"error\":true,\"reason\":\""
+                + reason.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    /**
+     * Repeated parameters (like daily=) get their values joined with commas,
+     * same as open-meteo treats them.
+     */
+    private static Map<String, String> parseQuery(final String query) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = decode(eq < 0 ? pair : pair.substring(0, eq));
+            String value = eq < 0 ? "" : decode(pair.substring(eq + 1));
+            params.merge(key, value, (a, b) -> a + "," + b);
+        }
+        return params;
+    }
+
+    private static String decode(final String text) {
+        return URLDecoder.decode(text, StandardCharsets.UTF_8);
+    }
+
+    private static String forecast(final Map<String, String> params) {
+        double[] lats = coordinates(params.get("latitude"), "latitude", 90);
+        double[] lons = coordinates(params.get("longitude"), "longitude",
+                180);
+        if (lats.length != lons.length) {
+            throw new IllegalArgumentException(
+                    "Parameter 'latitude' and 'longitude' must have the same "
+                            + "number of elements");
+        }
+        Set<String> daily = new LinkedHashSet<>();
+        if (params.containsKey("daily")) {
+            for (String field : params.get("daily").split(",")) {
+                if (!field.isEmpty()) {
+                    daily.add(field);
+                }
+            }
+        }
+        for (String field : daily) {
+            if (!field.equals("temperature_2m_max")
+                    && !field.equals("temperature_2m_min")
+                    && !field.equals("weather_code")) {
+                throw new IllegalArgumentException("Cannot initialize "
+                        + "WeatherVariable from invalid String value "
+                        + field);
+            }
+        }
+        LocalDate start;
+        LocalDate end;
+        try {
+            String startText = params.get("start_date");
+            String endText = params.get("end_date");
+            if (startText == null && endText == null) {
+                start = LocalDate.now();
+                end = start.plusDays(DEFAULT_DAYS - 1);
+            } else if (startText == null || endText == null) {
+                throw new IllegalArgumentException(
+                        "Both start_date and end_date must be set");
+            } else {
+                start = LocalDate.parse(startText);
+                end = LocalDate.parse(endText);
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format");
+        }
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException(
+                    "End-date must be larger or equals than start-date");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (lats.length > 1) {
+            sb.append('[');
+        }
+        for (int i = 0; i < lats.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendLocation(sb, lats[i], lons[i], start, end, daily);
+        }
+        if (lats.length > 1) {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    private static double[] coordinates(final String list, final String name,
+                                        final double limit) {
+        if (list == null || list.isEmpty()) {
+            throw new IllegalArgumentException("Parameter '" + name
+                    + "' is missing");
+        }
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                values[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Parameter '" + name
+                        + "' is not a number");
+            }
+            if (Math.abs(values[i]) > limit) {
+                throw new IllegalArgumentException("Parameter '" + name
+                        + "' must be between -" + (int) limit + " and "
+                        + (int) limit);
+            }
+        }
+        return values;
+    }
+
+    private static void appendLocation(final StringBuilder sb,
+                                       final double lat, final double lon,
+                                       final LocalDate start,
+                                       final LocalDate end,
+                                       final Set<String> daily) {
+        int days = (int) (end.toEpochDay() - start.toEpochDay()) + 1;
+        double[] highs = new double[days];
+        double[] lows = new double[days];
+        int[] codes = new int[days];
+        for (int d = 0; d < days; d++) {
+            makeDay(lat, lon, start.plusDays(d), d, highs, lows, codes);
+        }
+        sb.append(String.format(Locale.ROOT,
+                "{\"latitude\":%.4f,\"longitude\":%.4f,"
+                        + "\"generationtime_ms\":0.1,"
+                        + "\"utc_offset_seconds\":0,\"timezone\":\"GMT\","
+                        + "\"timezone_abbreviation\":\"GMT\","
+                        + "\"elevation\":100.0", lat, lon));
+        if (daily.isEmpty()) {
+            sb.append('}');
+            return;
+        }
+        sb.append(",\"daily_units\":{\"time\":\"iso8601\"");
+        for (String field : daily) {
+            sb.append(",\"").append(field).append("\":\"")
+                    .append(field.equals("weather_code") ? "wmo code"
+                            : "\u00b0C")
+                    .append('"');
+        }
+        sb.append("},\"daily\":{\"time\":[");
+        for (int d = 0; d < days; d++) {
+            sb.append(d > 0 ? ",\"" : "\"").append(start.plusDays(d))
+                    .append('"');
+        }
+        sb.append(']');
+        for (String field : daily) {
+            sb.append(",\"").append(field).append("\":[");
+            for (int d = 0; d < days; d++) {
+                if (d > 0) {
+                    sb.append(',');
+                }
+                if (field.equals("weather_code")) {
+                    sb.append(codes[d]);
+                } else {
+                    sb.append(String.format(Locale.ROOT, "%.1f",
+                            field.equals("temperature_2m_max")
+                                    ? highs[d] : lows[d]));
+                }
+            }
+            sb.append(']');
+        }
+        sb.append("}}");
+    }
+
+    /**
+     * Made up but believable: colder towards the poles, seasons flipped in
+     * the south, and some noise that only depends on place and date.
+     */
+    private static void makeDay(final double lat, final double lon,
+                                final LocalDate date, final int d,
+                                final double[] highs, final double[] lows,
+                                final int[] codes) {
+        long seed = Math.round(lat * 100) * 31_337L
+                + Math.round(lon * 100) * 7_919L + date.toEpochDay();
+        Random noise = new Random(seed);
+        double season = Math.cos(2 * Math.PI * (date.getDayOfYear() - 200)
+                / 365.0) * Math.signum(lat == 0 ? 1 : lat);
+        double mean = 27 - 0.45 * Math.abs(lat)
+                + 0.25 * Math.abs(lat) * season;
+        highs[d] = mean + 4 + noise.nextGaussian() * 2;
+        lows[d] = Math.min(mean - 4 + noise.nextGaussian() * 2,
+                highs[d] - 1);
+        int code = CODES[noise.nextInt(CODES.length)];
+        if (mean < 0 && (code == 61 || code == 63 || code == 80)) {
+            code = 71;
+        }
+        codes[d] = code;
+    }
+
+    /**
+     * Runs the stand-in until the process is killed.
+     * @param args [port] [latency ms] [error rate], default 8080 0 0
+     * @throws Exception if the server can't start
+     */
+    public static void main(final String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        OpenMeteoStubServer stub = new OpenMeteoStubServer(port, 32, 42);
+        if (args.length > 1) {
+            stub.setLatency(Duration.ofMillis(Long.parseLong(args[1])),
+                    Duration.ZERO);
+        }
+        if (args.length > 2) {
+            stub.setErrorRate(Double.parseDouble(args[2]));
+        }
+        stub.start();
+        System.out.println("open-meteo stand-in on " + stub.getBaseUrl()
+                + ", run the app with -D" + APIReader.BASE_URL_PROPERTY + "="
+                + stub.getBaseUrl());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,38 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The real provider, straight to open-meteo through APIReader.
+ */
+public class OpenMeteoWeatherProvider implements WeatherProvider {
+    private final APIReader apiReader;
+
+    public OpenMeteoWeatherProvider() {
+        this(new APIReader());
+    }
+
+    public OpenMeteoWeatherProvider(final APIReader apiReader) {
+        this.apiReader = apiReader;
+    }
+
+    @Override
+    public CompletableFuture<ForecastSeries> fetch(final double longitude,
+                                                   final double latitude,
+                                                   final String startDate,
+                                                   final int forecastDays) {
+        return apiReader.readForecastAsync(longitude, latitude, startDate,
+                forecastDays);
+    }
+
+    @Override
+    public CompletableFuture<List<ForecastSeries>> fetchBatch(
+            final double[] longitudes, final double[] latitudes,
+            final String startDate, final int forecastDays) {
+        return apiReader.readForecastBatch(longitudes, latitudes, startDate,
+                forecastDays);
+    }
+}
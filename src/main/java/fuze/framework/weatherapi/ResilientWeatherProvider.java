@@ -0,0 +1,274 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps another provider so a slow or broken open-meteo doesn't hang the
+ * main screen:
+ * - if a request takes longer than most recent ones did (95th percentile)
+ *   a second identical request is sent and whichever answers first wins
+ * - after a few failures in a row the circuit breaker opens and for a while
+ *   nothing is sent at all, then one trial request decides if it closes
+ * - whenever there's no answer (failure or breaker open) the last forecast
+ *   we ever got for that location is served from the ForecastStore, however
+ *   old, marked as stale (ForecastSeries.isStale) so it isn't cached
+ * The deadline for each request itself is in APIReader.
+ */
+public class ResilientWeatherProvider implements WeatherProvider {
+    /**
+     * System property to turn the hedged second request off with "false".
+     */
+    public static final String HEDGE_PROPERTY = "fuze.weather.hedge";
+
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final Duration DEFAULT_OPEN_TIME = Duration.ofSeconds(30);
+    private static final double HEDGE_PERCENTILE = 0.95;
+    /**
+     * Don't hedge before we know what normal looks like.
+     */
+    private static final int MIN_SAMPLES = 20;
+    /**
+     * Never hedge sooner than this, so a fast API doesn't get everything
+     * twice.
+     */
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50;
+
+    private final WeatherProvider delegate;
+    private final ForecastStore lastKnownGood;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final boolean hedge;
+
+    // Latencies of the last successful requests, in a ring
+    private final long[] latencies = new long[100];
+    private int latencyCount = 0;
+    private int latencyNext = 0;
+
+    // Circuit breaker state, all guarded by this
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private boolean trialRunning = false;
+
+    private final AtomicInteger hedgeCount = new AtomicInteger();
+    private final AtomicInteger staleCount = new AtomicInteger();
+
+    /**
+     * Default settings, hedging unless HEDGE_PROPERTY says otherwise.
+     * @param delegate the provider doing the actual requests
+     * @param lastKnownGood where old forecasts come from when it fails
+     */
+    public ResilientWeatherProvider(final WeatherProvider delegate,
+                                    final ForecastStore lastKnownGood) {
+        this(delegate, lastKnownGood, DEFAULT_FAILURE_THRESHOLD,
+                DEFAULT_OPEN_TIME,
+                !"false".equalsIgnoreCase(System.getProperty(HEDGE_PROPERTY)));
+    }
+
+    /**
+     * @param delegate the provider doing the actual requests
+     * @param lastKnownGood where old forecasts come from when it fails
+     * @param failureThreshold failures in a row before the breaker opens
+     * @param openTime how long the breaker stays open
+     * @param hedge whether slow requests get a second one sent
+     */
+    public ResilientWeatherProvider(final WeatherProvider delegate,
+                                    final ForecastStore lastKnownGood,
+                                    final int failureThreshold,
+                                    final Duration openTime,
+                                    final boolean hedge) {
+        this.delegate = delegate;
+        this.lastKnownGood = lastKnownGood;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openTime.toMillis();
+        this.hedge = hedge;
+    }
+
+    @Override
+    public CompletableFuture<ForecastSeries> fetch(final double longitude,
+                                                   final double latitude,
+                                                   final String startDate,
+                                                   final int forecastDays) {
+        ForecastKey key = new ForecastKey(longitude, latitude, startDate,
+                forecastDays);
+        if (!allowRequest()) {
+            return CompletableFuture.completedFuture(stale(key));
+        }
+        CompletableFuture<ForecastSeries> result = new CompletableFuture<>();
+        // Requests that could still answer, the result only fails once this
+        // gets to zero
+        AtomicInteger attempts = new AtomicInteger(1);
+        attempt(result, attempts, longitude, latitude, startDate,
+                forecastDays);
+
+        long delay = hedgeDelayMillis();
+        if (delay >= 0) {
+            CompletableFuture.runAsync(() -> {
+                if (!result.isDone()
+                        && attempts.getAndUpdate(n -> n > 0 ? n + 1 : n) > 0) {
+                    hedgeCount.incrementAndGet();
+                    attempt(result, attempts, longitude, latitude, startDate,
+                            forecastDays);
+                }
+            }, CompletableFuture.delayedExecutor(delay,
+                    TimeUnit.MILLISECONDS));
+        }
+
+        return result.handle((series, error) -> {
+            if (error != null) {
+                recordFailure();
+                return stale(key);
+            }
+            recordSuccess();
+            return series;
+        });
+    }
+
+    /**
+     * Batches are for warming caches in the background, so no hedging here,
+     * but they still go through the breaker.
+     */
+    @Override
+    public CompletableFuture<List<ForecastSeries>> fetchBatch(
+            final double[] longitudes, final double[] latitudes,
+            final String startDate, final int forecastDays) {
+        if (!allowRequest()) {
+            return CompletableFuture.completedFuture(
+                    staleBatch(longitudes, latitudes, startDate,
+                            forecastDays));
+        }
+        return delegate.fetchBatch(longitudes, latitudes, startDate,
+                forecastDays).handle((list, error) -> {
+                    if (error != null) {
+                        recordFailure();
+                        return staleBatch(longitudes, latitudes, startDate,
+                                forecastDays);
+                    }
+                    recordSuccess();
+                    return list;
+                });
+    }
+
+    /**
+     * @return true while requests are being held back
+     */
+    public synchronized boolean isOpen() {
+        return consecutiveFailures >= failureThreshold
+                && System.currentTimeMillis() < openUntil;
+    }
+
+    /**
+     * @return how many second requests were sent so far
+     */
+    public int getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * @return how many times an old forecast was served instead
+     */
+    public int getStaleCount() {
+        return staleCount.get();
+    }
+
+    private void attempt(final CompletableFuture<ForecastSeries> result,
+                         final AtomicInteger attempts,
+                         final double longitude, final double latitude,
+                         final String startDate, final int forecastDays) {
+        long started = System.nanoTime();
+        CompletableFuture<ForecastSeries> request;
+        try {
+            request = delegate.fetch(longitude, latitude, startDate,
+                    forecastDays);
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        request.whenComplete((series, error) -> {
+            if (error == null) {
+                recordLatency(TimeUnit.NANOSECONDS.toMillis(
+                        System.nanoTime() - started));
+                result.complete(series);
+            } else if (attempts.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * Marked with asStale() so nothing above this caches it as a fresh
+     * answer.
+     */
+    private ForecastSeries stale(final ForecastKey key) {
+        staleCount.incrementAndGet();
+        ForecastSeries old = lastKnownGood.getStale(key);
+        return old == null ? null : old.asStale();
+    }
+
+    private List<ForecastSeries> staleBatch(final double[] longitudes,
+                                            final double[] latitudes,
+                                            final String startDate,
+                                            final int forecastDays) {
+        List<ForecastSeries> all = new ArrayList<>(longitudes.length);
+        for (int i = 0; i < longitudes.length; i++) {
+            all.add(stale(new ForecastKey(longitudes[i], latitudes[i],
+                    startDate, forecastDays)));
+        }
+        return all;
+    }
+
+    /**
+     * Closed breakers let everything through. Once open, nothing goes
+     * through until openTime is up, then exactly one trial request.
+     */
+    private synchronized boolean allowRequest() {
+        if (consecutiveFailures < failureThreshold) {
+            return true;
+        }
+        if (System.currentTimeMillis() < openUntil || trialRunning) {
+            return false;
+        }
+        trialRunning = true;
+        return true;
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialRunning = false;
+    }
+
+    private synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialRunning = false;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntil = System.currentTimeMillis() + openMillis;
+            System.out.println("Weather requests keep failing, using saved "
+                    + "forecasts for " + openMillis / 1000 + "s");
+        }
+    }
+
+    private synchronized void recordLatency(final long millis) {
+        latencies[latencyNext] = millis;
+        latencyNext = (latencyNext + 1) % latencies.length;
+        latencyCount = Math.min(latencyCount + 1, latencies.length);
+    }
+
+    /**
+     * @return how long to wait before hedging, -1 for no hedge
+     */
+    private synchronized long hedgeDelayMillis() {
+        if (!hedge || latencyCount < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(HEDGE_PERCENTILE * latencyCount) - 1;
+        return Math.max(sorted[Math.max(index, 0)], MIN_HEDGE_DELAY_MILLIS);
+    }
+}
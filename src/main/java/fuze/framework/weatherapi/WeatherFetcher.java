@@ -1,11 +1,17 @@
 package fuze.framework.weatherapi;
 
+import fuze.entity.weather.ForecastSeries;
 import fuze.entity.weather.WeatherDay;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 import org.json.JSONArray;
-import org.json.JSONObject;
 
 /**
  * A class to give another layer between the weather entities and the API
@@ -22,11 +28,20 @@ public class WeatherFetcher {
      * @param latitude which will sometimes be stored in double[] form
      */
     private boolean isDataLoaded = false;
+    private boolean isStale = false;
+    // Why the last load failed, null if it didn't
+    private Throwable loadError;
     private int forecastDays;
     private double longitude;
     private double latitude;
     private String startDate;
-    private JSONObject weatherData;
+    private ForecastSeries weatherData;
+    /**
+     * Shared by every WeatherFetcher, picked from the system properties on
+     * startup (see WeatherProvider.fromConfiguration).
+     */
+    private static volatile WeatherProvider provider =
+            WeatherProvider.fromConfiguration();
 
     /**
      * Creates an instance of WeatherFetcher with default settings.
@@ -39,7 +54,7 @@ public class WeatherFetcher {
         this.longitude = -79.38;
         this.latitude = 43.65;
         this.startDate = LocalDate.now().toString();
-        this.weatherData = new JSONObject();
+        this.weatherData = null;
         this.isDataLoaded = false;
         loadWeeklyForecast();
     }
@@ -57,7 +72,7 @@ public class WeatherFetcher {
         this.longitude = longitude;
         this.latitude = latitude;
         this.startDate = LocalDate.now().toString();
-        this.weatherData = new JSONObject();
+        this.weatherData = null;
         this.isDataLoaded = false;
         loadWeeklyForecast();
     }
@@ -77,48 +92,291 @@ public class WeatherFetcher {
         this.latitude = latitude;
         this.forecastDays = forecastDays;
         this.startDate = startDate;
-        this.weatherData = new JSONObject();
+        this.weatherData = null;
         this.isDataLoaded = false;
         loadWeeklyForecast();
     }
 
+    /**
+     * Used by fetchAsync once the data has already arrived, so nothing gets
+     * loaded here.
+     */
+    private WeatherFetcher(final String startDate, final int forecastDays,
+                           final double longitude, final double latitude,
+                           final ForecastSeries data) {
+        this(startDate, forecastDays, longitude, latitude, data, null);
+    }
+
+    private WeatherFetcher(final String startDate, final int forecastDays,
+                           final double longitude, final double latitude,
+                           final ForecastSeries data, final Throwable error) {
+        this.loadError = error;
+        this.longitude = longitude;
+        this.latitude = latitude;
+        this.forecastDays = forecastDays;
+        this.startDate = startDate;
+        this.weatherData = data;
+        this.isDataLoaded = data != null;
+        this.isStale = data != null && data.isStale();
+    }
+
+    /**
+     * Never touches the network: builds a fetcher out of whatever is cached
+     * for the location, fresh if possible and otherwise the newest forecast on
+     * disk even if it's old (isStale() says which). Meant for drawing
+     * something right away and then calling fetchAsync for the real thing.
+     * @param startDate see above
+     * @param forecastDays see above
+     * @param longitude see above
+     * @param latitude see above
+     * @return a fetcher, not loaded at all if nothing was ever cached
+     */
+    public static WeatherFetcher fromCache(final String startDate,
+                                           final int forecastDays,
+                                           final double longitude,
+                                           final double latitude) {
+        ForecastKey key = new ForecastKey(longitude, latitude, startDate,
+                forecastDays);
+        ForecastSeries fresh = ForecastMemoryCache.getShared().get(key);
+        if (fresh == null) {
+            fresh = ForecastStore.getDefault().get(key);
+        }
+        if (fresh != null) {
+            return new WeatherFetcher(startDate, forecastDays, longitude,
+                    latitude, fresh);
+        }
+        ForecastSeries old = ForecastStore.getDefault().getLatest(key);
+        if (old != null) {
+            try {
+                old = old.slice(LocalDate.parse(startDate), forecastDays + 1);
+            } catch (Exception e) {
+                old = null;
+            }
+        }
+        WeatherFetcher fetcher = new WeatherFetcher(startDate, forecastDays,
+                longitude, latitude,
+                old == null || old.isEmpty() ? null : old);
+        fetcher.isStale = true;
+        return fetcher;
+    }
+
+    /**
+     * @return why loading the forecast failed (the network was down,
+     * open-meteo sent something broken...), null if it didn't fail. A
+     * fetcher with no data and no error just had no forecast for the days
+     */
+    public Throwable getLoadError() {
+        return loadError;
+    }
+
+    /**
+     * @return true if the forecast in this is old (or missing): it came from
+     * fromCache, or the provider couldn't get a fresh one and fell back on
+     * the last one it had
+     */
+    public boolean isStale() {
+        return isStale;
+    }
+
+    /**
+     * Same parameters as the full constructor, but the request runs in the
+     * background so the caller can start a few of these (different cities,
+     * trips...) and wait on them together.
+     * @param startDate see above
+     * @param forecastDays see above
+     * @param longitude see above
+     * @param latitude see above
+     * @return a future of a WeatherFetcher that already has its data, if the
+     * request failed it completes with an empty (not loaded) fetcher whose
+     * getLoadError() says why
+     */
+    public static CompletableFuture<WeatherFetcher> fetchAsync(
+            final String startDate, final int forecastDays,
+            final double longitude, final double latitude) {
+        return load(startDate, forecastDays, longitude, latitude)
+                .handle((data, error) -> fetched(startDate, forecastDays,
+                        longitude, latitude, data, error));
+    }
+
+    /**
+     * Batch version of fetchAsync for a lot of locations at once (e.g. warming
+     * the caches for every city in the dropdown). Anything already cached is
+     * reused and everything else goes to the provider as one batch (for
+     * open-meteo that's as few requests as it allows, instead of one request
+     * per city).
+     * @param startDate see above
+     * @param forecastDays see above
+     * @param longitudes longitude of each location
+     * @param latitudes latitude of each location, same order as longitudes
+     * @return future of one WeatherFetcher per location, in the same order
+     * (failed ones are empty, with a getLoadError())
+     */
+    public static CompletableFuture<List<WeatherFetcher>> fetchBatch(
+            final String startDate, final int forecastDays,
+            final double[] longitudes, final double[] latitudes) {
+        if (longitudes.length != latitudes.length) {
+            throw new IllegalArgumentException(
+                    "Need as many longitudes as latitudes");
+        }
+        // Locations in the same grid cell join the first one's load, so
+        // each cell is only asked for once (with the first one's
+        // coordinates)
+        List<ForecastKey> keys = new ArrayList<>();
+        for (int i = 0; i < longitudes.length; i++) {
+            keys.add(new ForecastKey(longitudes[i], latitudes[i], startDate,
+                    forecastDays));
+        }
+        List<CompletableFuture<ForecastSeries>> results =
+                ForecastMemoryCache.getShared().getOrLoadAll(keys, pending -> {
+                    double[] lons = new double[pending.size()];
+                    double[] lats = new double[pending.size()];
+                    for (int j = 0; j < pending.size(); j++) {
+                        lons[j] = longitudes[pending.get(j)];
+                        lats[j] = latitudes[pending.get(j)];
+                    }
+                    return provider.fetchBatch(lons, lats, startDate,
+                            forecastDays);
+                });
+
+        List<CompletableFuture<WeatherFetcher>> fetchers = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            double longitude = longitudes[i];
+            double latitude = latitudes[i];
+            fetchers.add(results.get(i)
+                    .handle((data, error) -> fetched(startDate, forecastDays,
+                            longitude, latitude, data, error)));
+        }
+        return CompletableFuture.allOf(
+                fetchers.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<WeatherFetcher> all = new ArrayList<>();
+                    for (CompletableFuture<WeatherFetcher> fetcher : fetchers) {
+                        all.add(fetcher.join());
+                    }
+                    return all;
+                });
+    }
+
+    /**
+     * @return the provider every WeatherFetcher currently loads from
+     */
+    public static WeatherProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * Swaps where forecasts come from (e.g. a FixtureWeatherProvider for
+     * tests). The memory cache is emptied so nothing from the old provider
+     * gets served.
+     * @param weatherProvider the new provider, not null
+     */
+    public static void setProvider(final WeatherProvider weatherProvider) {
+        if (weatherProvider == null) {
+            throw new IllegalArgumentException("Provider can't be null");
+        }
+        provider = weatherProvider;
+        ForecastMemoryCache.getShared().clear();
+    }
+
+    /**
+     * Wraps data that was just fetched, counting it if there was none.
+     */
+    private static WeatherFetcher fetched(final String startDate,
+                                          final int forecastDays,
+                                          final double longitude,
+                                          final double latitude,
+                                          final ForecastSeries data,
+                                          final Throwable error) {
+        if (data == null) {
+            WeatherMetrics.getShared().recordEmptyForecast();
+        }
+        return new WeatherFetcher(startDate, forecastDays, longitude,
+                latitude, error == null ? data : null, cause(error));
+    }
+
+    /**
+     * @return the real failure, not the CompletionException around it
+     */
+    private static Throwable cause(final Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException
+                || cause instanceof ExecutionException
+                || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Where every forecast comes from: memory first (joining a request that's
+     * already running for the same key), then the configured provider (by
+     * default the disk cache and then open-meteo). The provider gets the
+     * caller's own coordinates; the key is the grid cell, so anyone else in
+     * the same cell shares that forecast (see GridCell for how far off that
+     * can be).
+     * @return future of the forecast, null if there isn't one
+     */
+    private static CompletableFuture<ForecastSeries> load(
+            final String startDate, final int forecastDays,
+            final double longitude, final double latitude) {
+        ForecastKey key = new ForecastKey(longitude, latitude, startDate,
+                forecastDays);
+        return ForecastMemoryCache.getShared().getOrLoad(key, () ->
+                provider.fetch(longitude, latitude, startDate, forecastDays));
+    }
+
     /**
      * Returns actual JSON array
      * @return JSONArray
      */
     public JSONArray getForecastDates() {
+        JSONArray time = new JSONArray();
         if (weatherData == null) {
-            return new JSONArray();
+            return time;
         }
-        JSONObject daily = weatherData.optJSONObject("daily");
-        if (daily == null) {
-            return new JSONArray();
+        for (int i = 0; i < weatherData.size(); i++) {
+            time.put(weatherData.getDate(i).toString());
         }
-        JSONArray time = daily.optJSONArray("time");
-        return time != null ? time : new JSONArray();
+        return time;
+    }
+
+    /**
+     * The loaded forecast itself, prefer this over getWeatherByDate when
+     * going through several days.
+     * @return the ForecastSeries, null if nothing could be loaded
+     */
+    public ForecastSeries getForecastSeries() {
+        return isDataLoaded ? weatherData : null;
     }
 
     /**
      * This loads a whole week instead of making a bunch of calls, it is
      * important to have the isLoaded bool because otherwise the data hasn't
-     * been properly called.
+     * been properly called. See load() for the caches checked first.
+     * If it fails the fetcher is just left empty, getLoadError() says why.
      */
     private void loadWeeklyForecast() {
         try {
-            APIReader apiReader = new APIReader();
-            JSONObject data = apiReader.readAPI(this.longitude,
-                    this.latitude, this.startDate, this.forecastDays);
+            ForecastSeries data = load(this.startDate, this.forecastDays,
+                    this.longitude, this.latitude).get();
             if (data != null) {
                 this.weatherData = data;
                 this.isDataLoaded = true;
+                this.isStale = data.isStale();
             } else {
                 this.isDataLoaded = false;
-                this.weatherData = new JSONObject();
+                this.weatherData = null;
+                WeatherMetrics.getShared().recordEmptyForecast();
             }
         } catch (Exception e) {
-            System.out.println("Error while loading weather data");
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            this.loadError = cause(e);
             this.isDataLoaded = false;
-            this.weatherData = new JSONObject();
+            this.weatherData = null;
+            WeatherMetrics.getShared().recordEmptyForecast();
         }
 
     }
@@ -130,37 +388,19 @@ public class WeatherFetcher {
      * @return a WeatherDay entity for the given day
      */
     public WeatherDay getWeatherByDate(final String date) {
-        if (!isDataLoaded || weatherData == null || !weatherData.has("daily")) {
+        if (!isDataLoaded || weatherData == null) {
             return null;
         }
         //Please refer to WeatherDay
-        int i = 0;
-        JSONObject daily = weatherData.getJSONObject("daily");
-        JSONArray time = daily.optJSONArray("time");
-        if (time == null) {
+        int i;
+        try {
+            i = weatherData.indexOf(LocalDate.parse(date));
+        } catch (Exception e) {
             return null;
         }
-        while (i < time.length() && i <= this.forecastDays) {
-            String day = time.optString(i, "");
-            if (day.equals(date)) {
-                JSONArray codes = daily.optJSONArray("weather_code");
-                JSONArray highs = daily.optJSONArray("temperature_2m_max");
-                JSONArray lows = daily.optJSONArray("temperature_2m_min");
-                if (codes == null || highs == null || lows == null) {
-                    return null;
-                }
-                int weatherCondition = codes.optInt(i);
-                double longitude = weatherData.optDouble("longitude");
-                double latitude = weatherData.optDouble("latitude");
-                double tempHigh = highs.optDouble(i);
-                double tempLow = lows.optDouble(i);
-                double[] location = new double[]{longitude, latitude};
-                WeatherDay weatherDay = new WeatherDay(weatherCondition, tempHigh,
-                        tempLow, location, date);
-                return weatherDay;
-            }
-            i++;
+        if (i < 0 || i > this.forecastDays) {
+            return null;
         }
-        return null;
+        return weatherData.getWeatherDay(i);
     }
-}
\ No newline at end of file
+}
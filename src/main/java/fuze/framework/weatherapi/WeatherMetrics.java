@@ -0,0 +1,230 @@
+package fuze.framework.weatherapi;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Numbers about the weather client for the whole process: how many requests
+ * went out and failed, how long they took, how many bytes came back, how
+ * long decoding took, how often a forecast came back empty and how often
+ * the caches saved a request. APIReader, the disk cache provider and
+ * WeatherFetcher report in here; publish() puts it on JMX and logs a summary
+ * line every few minutes.
+ */
+public final class WeatherMetrics implements WeatherMetricsMBean {
+    /**
+     * System property for the minutes between summary log lines, 0 turns
+     * the line off.
+     */
+    public static final String LOG_PROPERTY = "fuze.weather.metricsLogMinutes";
+    private static final long DEFAULT_LOG_MINUTES = 5;
+    private static final String OBJECT_NAME =
+            "fuze.framework.weatherapi:type=WeatherMetrics";
+    private static final Logger LOGGER =
+            Logger.getLogger("fuze.framework.weatherapi");
+
+    private static final WeatherMetrics SHARED = new WeatherMetrics();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder emptyForecasts = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder diskMisses = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram decode = new LatencyHistogram();
+    private ScheduledExecutorService logTimer;
+
+    WeatherMetrics() {
+    }
+
+    /**
+     * @return the metrics everything in this package reports to
+     */
+    public static WeatherMetrics getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Registers the MBean and starts the periodic log line, only does
+     * anything the first time.
+     */
+    public synchronized void publish() {
+        if (logTimer != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            System.out.println("Could not register weather metrics with JMX");
+        }
+        logTimer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "weather-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long minutes = Long.getLong(LOG_PROPERTY, DEFAULT_LOG_MINUTES);
+        if (minutes > 0) {
+            logTimer.scheduleAtFixedRate(() -> LOGGER.info(summary()), minutes,
+                    minutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * One HTTP request finished.
+     * @param nanos from sending to the response (or failure)
+     * @param failed true if it threw or open-meteo answered with an error
+     */
+    void recordRequest(final long nanos, final boolean failed) {
+        requests.increment();
+        if (failed) {
+            errors.increment();
+        }
+        latency.record(nanos);
+    }
+
+    /**
+     * One response body was read and decoded.
+     * @param nanos how long reading + decoding took
+     * @param bytes size of the body
+     */
+    void recordDecode(final long nanos, final long bytes) {
+        decode.record(nanos);
+        responseBytes.add(bytes);
+    }
+
+    void recordDiskCache(final boolean hit) {
+        if (hit) {
+            diskHits.increment();
+        } else {
+            diskMisses.increment();
+        }
+    }
+
+    /**
+     * WeatherFetcher ended up with no forecast at all.
+     */
+    void recordEmptyForecast() {
+        emptyForecasts.increment();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    @Override
+    public long getEmptyForecastCount() {
+        return emptyForecasts.sum();
+    }
+
+    @Override
+    public double getLatencyMeanMillis() {
+        return latency.getMeanMillis();
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latency.getPercentileMillis(0.50);
+    }
+
+    @Override
+    public double getLatencyP95Millis() {
+        return latency.getPercentileMillis(0.95);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latency.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return latency.getMaxMillis();
+    }
+
+    @Override
+    public double getDecodeP50Millis() {
+        return decode.getPercentileMillis(0.50);
+    }
+
+    @Override
+    public double getDecodeP99Millis() {
+        return decode.getPercentileMillis(0.99);
+    }
+
+    /**
+     * Coalesced requests count as hits, they didn't cost a fetch. This one
+     * comes from the shared ForecastMemoryCache and isn't reset by reset().
+     */
+    @Override
+    public double getMemoryCacheHitRatio() {
+        ForecastMemoryCache cache = ForecastMemoryCache.getShared();
+        return ratio(cache.getHitCount() + cache.getCoalescedCount(),
+                cache.getMissCount());
+    }
+
+    @Override
+    public double getDiskCacheHitRatio() {
+        return ratio(diskHits.sum(), diskMisses.sum());
+    }
+
+    @Override
+    public void reset() {
+        requests.reset();
+        errors.reset();
+        responseBytes.reset();
+        emptyForecasts.reset();
+        diskHits.reset();
+        diskMisses.reset();
+        latency.reset();
+        decode.reset();
+    }
+
+    /**
+     * @return everything on one line, what gets logged
+     */
+    public String summary() {
+        return String.format(Locale.ROOT, "weather requests=%d errors=%d "
+                        + "bytes=%d empty=%d latency p50=%.1fms p95=%.1fms "
+                        + "p99=%.1fms max=%.1fms decode p50=%.2fms "
+                        + "p99=%.2fms memoryHit=%.2f diskHit=%.2f",
+                getRequestCount(), getErrorCount(), getResponseBytes(),
+                getEmptyForecastCount(), getLatencyP50Millis(),
+                getLatencyP95Millis(), getLatencyP99Millis(),
+                getLatencyMaxMillis(), getDecodeP50Millis(),
+                getDecodeP99Millis(), getMemoryCacheHitRatio(),
+                getDiskCacheHitRatio());
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+
+    private static double ratio(final long hits, final long misses) {
+        long all = hits + misses;
+        return all == 0 ? 0 : (double) hits / all;
+    }
+}
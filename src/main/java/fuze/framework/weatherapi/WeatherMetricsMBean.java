@@ -0,0 +1,38 @@
+package fuze.framework.weatherapi;
+
+/**
+ * What WeatherMetrics shows in JConsole/VisualVM, under
+ * fuze.framework.weatherapi:type=WeatherMetrics. Times are in milliseconds.
+ */
+public interface WeatherMetricsMBean {
+    long getRequestCount();
+
+    long getErrorCount();
+
+    long getResponseBytes();
+
+    long getEmptyForecastCount();
+
+    double getLatencyMeanMillis();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP95Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyMaxMillis();
+
+    double getDecodeP50Millis();
+
+    double getDecodeP99Millis();
+
+    double getMemoryCacheHitRatio();
+
+    double getDiskCacheHitRatio();
+
+    /**
+     * Starts every counter and histogram over.
+     */
+    void reset();
+}
@@ -0,0 +1,94 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where WeatherFetcher gets its forecasts from. The real one talks to
+ * open-meteo, FixtureWeatherProvider serves recorded responses from disk so
+ * the planners can be run (and load tested) without any network.
+ * Pick one with -Dfuze.weather.provider=open-meteo|fixture, see
+ * fromConfiguration().
+ */
+public interface WeatherProvider {
+    /**
+     * System property picking the provider, "open-meteo" (default) or
+     * "fixture".
+     */
+    String PROVIDER_PROPERTY = "fuze.weather.provider";
+    /**
+     * System property with the folder FixtureWeatherProvider reads from,
+     * defaults to ~/.fuzewardrobe/fixtures.
+     */
+    String FIXTURES_PROPERTY = "fuze.weather.fixtures";
+
+    /**
+     * @param longitude lon double
+     * @param latitude lat double
+     * @param startDate "yyyy-mm-dd"
+     * @param forecastDays number of days after startDate
+     * @return future of the forecast, null if there isn't one
+     */
+    CompletableFuture<ForecastSeries> fetch(double longitude, double latitude,
+                                            String startDate,
+                                            int forecastDays);
+
+    /**
+     * Several locations at once, providers that can do this in one go
+     * (like open-meteo) should override it.
+     * @param longitudes longitude of each location
+     * @param latitudes latitude of each location, same order
+     * @param startDate "yyyy-mm-dd"
+     * @param forecastDays number of days after startDate
+     * @return future of one forecast (or null) per location, same order
+     */
+    default CompletableFuture<List<ForecastSeries>> fetchBatch(
+            final double[] longitudes, final double[] latitudes,
+            final String startDate, final int forecastDays) {
+        List<CompletableFuture<ForecastSeries>> each = new ArrayList<>();
+        for (int i = 0; i < longitudes.length; i++) {
+            each.add(fetch(longitudes[i], latitudes[i], startDate,
+                    forecastDays));
+        }
+        return CompletableFuture.allOf(
+                each.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<ForecastSeries> all = new ArrayList<>();
+                    for (CompletableFuture<ForecastSeries> f : each) {
+                        all.add(f.join());
+                    }
+                    return all;
+                });
+    }
+
+    /**
+     * @return the provider the system properties ask for, the cached,
+     * resilient and incremental open-meteo one unless told otherwise
+     */
+    static WeatherProvider fromConfiguration() {
+        String name = System.getProperty(PROVIDER_PROPERTY, "open-meteo");
+        if ("fixture".equalsIgnoreCase(name)) {
+            String folder = System.getProperty(FIXTURES_PROPERTY);
+            Path fixtures = folder != null ? Paths.get(folder)
+                    : Paths.get(System.getProperty("user.home"),
+                            ".fuzewardrobe", "fixtures");
+            return new FixtureWeatherProvider(fixtures);
+        }
+        ForecastStore disk = ForecastStore.getDefault();
+        // The resilient layer goes outside the disk cache so an old forecast
+        // it falls back on never gets written back as a fresh one, and the
+        // incremental one outside everything so only missing days go further.
+        // Fallbacks are marked stale, so the incremental layer and the memory
+        // cache don't keep them either
+        return new IncrementalWeatherProvider(
+                new ResilientWeatherProvider(
+                        new DiskCachedWeatherProvider(
+                                new OpenMeteoWeatherProvider(), disk), disk),
+                disk.getTimeToLive());
+    }
+}
@@ -2,6 +2,7 @@ package fuze.usecases.generateoutfit;
 
 import fuze.entity.clothing.ClothingArticle;
 import fuze.entity.clothing.Outfit;
+import fuze.entity.location.CityGazetteer;
 import fuze.entity.weather.WeatherDay;
 
 import java.util.HashMap;
@@ -23,6 +24,11 @@ import java.util.Map;
  *   or you can pass a boolean flag via isRaining argument.
  */
 public class OutfitCreator {
+    /**
+     * Titles name a city if one is at most this far away.
+     */
+    private static final double NEAR_CITY_KM = 50;
+
     /**
      * Creates a new outfit based on the conditions that day.
      * @param day see WeatherDay class
@@ -39,7 +45,7 @@ public class OutfitCreator {
         }
 
         boolean isRaining = isRainingOverride
-                || (day != null && isRainyString(day.getWeather()));
+                || (day != null && day.isRaining());
         double defaultTemperature = 15.0;
         double averageTemperature = day != null ? averageTemp(day)
                 : defaultTemperature;
@@ -200,10 +206,6 @@ public class OutfitCreator {
         return 0;
     }
 
-    private boolean isRainyString(final String weather) {
-        return weather != null && weather.toLowerCase().contains("rain");
-    }
-
     private boolean hasWaterproof(final ClothingArticle article) {
         return article != null && article.isWaterproof();
     }
@@ -215,13 +217,22 @@ public class OutfitCreator {
                 isRaining ? " (rain)" : "");
     }
 
+    /**
+     * The closest known city, or the raw coordinates when there isn't one
+     * within NEAR_CITY_KM.
+     */
     private String formatLocation(final WeatherDay day) {
-        if (day == null || day.getLocation() == null
-                || day.getLocation().length < 2) {
+        if (day == null || !day.hasLocation()) {
             return "Unknown location";
         }
-        double[] loc = day.getLocation();
-        return String.format("%.4f, %.4f", loc[0], loc[1]);
+        CityGazetteer cities = CityGazetteer.getDefault();
+        int city = cities.nearest(day.getLatitude(), day.getLongitude(),
+                NEAR_CITY_KM);
+        if (city >= 0) {
+            return cities.getName(city);
+        }
+        return String.format("%.4f, %.4f", day.getLongitude(),
+                day.getLatitude());
     }
 
     private double averageTemp(final WeatherDay day) {
@@ -3,6 +3,7 @@ package fuze.usecases.planweekly;
 import fuze.entity.clothing.ClothingArticle;
 import fuze.entity.clothing.Outfit;
 import fuze.entity.clothing.Photo;
+import fuze.entity.plan.WeekPlan;
 import fuze.entity.weather.WeatherDay;
 import fuze.entity.weather.WeatherWeek;
 
@@ -48,24 +49,34 @@ public class WeeklyPlanner extends JFrame {
     }
 
     /**
-     * Populate the grid with data from the given WeatherWeek (up to 7 days).
+     * Populate the grid with just the weather from the given WeatherWeek
+     * (up to 7 days), no outfits.
      */
     public void setWeatherWeek(WeatherWeek week) {
-        String location = (week != null && week.getDefaultLocation() != null)
-                ? week.getDefaultLocation()
+        setWeekPlan(WeekPlan.weatherOnly(week, 7));
+    }
+
+    /**
+     * Populate the grid with a plan from WeeklyPlannerInteractor (up to 7
+     * days).
+     */
+    public void setWeekPlan(WeekPlan plan) {
+        String location = (plan != null && plan.getLocation() != null)
+                ? plan.getLocation()
                 : "-";
         locationLabel.setText("Location: " + location);
 
         daysPanel.removeAll();
         for (int i = 0; i < 7; i++) {
-            WeatherDay day = (week != null) ? week.getWeatherDay(i) : null;
-            daysPanel.add(buildDayCard(day, i + 1));
+            WeatherDay day = (plan != null) ? plan.getWeatherDay(i) : null;
+            Outfit outfit = (plan != null) ? plan.getOutfit(i) : null;
+            daysPanel.add(buildDayCard(day, outfit, i + 1));
         }
         daysPanel.revalidate();
         daysPanel.repaint();
     }
 
-    private JPanel buildDayCard(WeatherDay day, int index) {
+    private JPanel buildDayCard(WeatherDay day, Outfit outfit, int index) {
         JPanel card = new JPanel();
         card.setLayout(new BorderLayout(4, 4));
         card.setBorder(BorderFactory.createTitledBorder(new LineBorder(Color.GRAY), "Day " + index));
@@ -82,7 +93,6 @@ public class WeeklyPlanner extends JFrame {
         // Outfit section
         JPanel outfitPanel = new JPanel();
         outfitPanel.setLayout(new BoxLayout(outfitPanel, BoxLayout.Y_AXIS));
-        Outfit outfit = day != null ? day.getOutfit() : null;
         if (outfit != null && outfit.getItems() != null && !outfit.getItems().isEmpty()) {
             outfitPanel.add(new JLabel("Outfit: " + safe(outfit.getTitle())));
 
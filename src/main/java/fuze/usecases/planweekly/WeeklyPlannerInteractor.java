@@ -2,6 +2,8 @@ package fuze.usecases.planweekly;
 
 import fuze.entity.clothing.ClothingArticle;
 import fuze.entity.clothing.Outfit;
+import fuze.entity.plan.DayPlan;
+import fuze.entity.plan.WeekPlan;
 import fuze.entity.weather.WeatherDay;
 import fuze.entity.weather.WeatherWeek;
 import fuze.usecases.generateoutfit.OutfitCreator;
@@ -30,6 +32,10 @@ public class WeeklyPlannerInteractor {
      * outfitCreator: The creator to handle logic.
      */
     private final OutfitCreator outfitCreator;
+    /**
+     * How many days a plan covers, same as the planner grid.
+     */
+    public static final int DAYS_PER_WEEK = 7;
 
     /**
      * Creates an instance of it.
@@ -44,34 +50,40 @@ public class WeeklyPlannerInteractor {
 
     /**
      * Generates outfits for each day in the provided WeatherWeek.
-     * Applies a no-repeat rule for consecutive days.
+     * Applies a no-repeat rule for consecutive days. The week itself isn't
+     * touched, so the same one can be planned any number of times at once.
      * @param week a WeatherWeek, specifically for this location.
+     * @return the plan, DAYS_PER_WEEK slots (no outfits if the wardrobe is
+     * empty), an empty plan for a null week
      */
-    public void generateOutfitsForWeek(final WeatherWeek week) {
+    public WeekPlan generateOutfitsForWeek(final WeatherWeek week) {
         if (week == null) {
-            return;
+            return WeekPlan.weatherOnly(null, 0);
         }
 
         Map<String, List<ClothingArticle>> wardrobeMap =
                 buildWardrobeMap(wardrobeRepository.getAll());
         if (isWardrobeEmpty(wardrobeMap)) {
-            return;
+            return WeekPlan.weatherOnly(week, DAYS_PER_WEEK);
         }
 
         Set<String> prevNames = new HashSet<>();
         Outfit previousOutfit = null;
+        List<DayPlan> plans = new ArrayList<>(DAYS_PER_WEEK);
 
-        for (int i = 0; i < 7; i++) {
+        for (int i = 0; i < DAYS_PER_WEEK; i++) {
             WeatherDay day = week.getWeatherDay(i);
             if (day == null) {
+                plans.add(null);
                 continue;
             }
             Outfit outfit = generateOutfitWithNoRepeat(day, wardrobeMap,
                     prevNames, previousOutfit);
-            day.setOutfit(outfit);
+            plans.add(new DayPlan(day, outfit));
             prevNames = extractNames(outfit);
             previousOutfit = outfit;
         }
+        return new WeekPlan(week.getDefaultLocation(), plans);
     }
 
     private boolean isWardrobeEmpty(final Map<String,
@@ -2,9 +2,9 @@ package fuze.usecases.trippacking;
 
 import fuze.entity.clothing.ClothingArticle;
 import fuze.entity.clothing.Outfit;
+import fuze.entity.plan.DayPlan;
 import fuze.entity.weather.WeatherDay;
 import fuze.entity.weather.WeatherTrip;
-import fuze.entity.weather.WeatherWeek;
 import fuze.usecases.generateoutfit.OutfitCreator;
 import fuze.usecases.managewardrobe.WardrobeRepository;
 
@@ -12,6 +12,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class TripPlannerInteractor {
     /** Wardrobe to select from.*/
@@ -57,37 +58,58 @@ public class TripPlannerInteractor {
                     "Dates must be in format yyyy-mm-dd.");
         }
     }
-    /** Generate the full list of WeatherDay objects for the trip
+    /** Generate the plan for every day of the trip
      * based on WeatherTrip. This is really to only be used by the UI
+     * Days past the forecast get the usual weather for that place and time
+     * of year (see WeatherTrip), days there's nothing at all for are left
+     * out.
      * @param location as a string (using the lookup functions)
      * @param start the local start date
      * @param days integer number of planned days
-     * @return a list of WeatherDays
+     * @return a list of DayPlans, the forecast days themselves are left
+     * as they are
      */
-    public List<WeatherDay> generateTripPlan(final String location,
+    public List<DayPlan> generateTripPlan(final String location,
                                              final LocalDate start,
                                              final int days) {
         // Creating the actual trip from the WeatherTrip, which helps handle API
         // calls and weather stuff.
         WeatherTrip trip = new WeatherTrip(location, start.toString(), days);
+        return planTrip(trip, days);
+    }
+
+    /**
+     * Same as generateTripPlan but the forecast is fetched in the background,
+     * so the UI doesn't freeze while it waits.
+     * @param location as a string (using the lookup functions)
+     * @param start the local start date
+     * @param days integer number of planned days
+     * @return future of the same list generateTripPlan gives
+     */
+    public CompletableFuture<List<DayPlan>> generateTripPlanAsync(
+            final String location, final LocalDate start, final int days) {
+        return WeatherTrip.lazy(location, start.toString(), days).load()
+                .thenApply(trip -> planTrip(trip, days));
+    }
+
+    private List<DayPlan> planTrip(final WeatherTrip trip, final int days) {
         Map<String, List<ClothingArticle>> wardrobeMap =
                 buildWardrobeMap(wardrobeRepository
                         != null ? wardrobeRepository.getAll() : List.of());
 
-        List<WeatherDay> result = new ArrayList<>();
+        List<DayPlan> result = new ArrayList<>();
         Set<String> prevNames = new HashSet<>();
 
         for (int i = 0; i < days; i++) {
             WeatherDay day = trip.getWeatherDay(i);
             if (day == null) {
-                day = new WeatherWeek().getWeatherDay(i);
-            } else {
-                Outfit outfit = generateOutfitWithNoRepeat(day, wardrobeMap,
-                        prevNames);
-                day.setOutfit(outfit);
-                prevNames = extractNames(outfit);
+                // No forecast and no normals close enough to the place
+                continue;
             }
-            result.add(day);
+            Outfit outfit = generateOutfitWithNoRepeat(day, wardrobeMap,
+                    prevNames);
+            prevNames = extractNames(outfit);
+            result.add(new DayPlan(day, outfit));
         }
         return result;
     }
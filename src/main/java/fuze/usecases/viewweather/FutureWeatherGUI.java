@@ -2,6 +2,7 @@ package fuze.usecases.viewweather;
 
 import fuze.entity.location.LocationStringToCoordinate;
 import fuze.entity.weather.WeatherDay;
+import fuze.framework.gui.CityAutoComplete;
 
 import javax.swing.*;
 import java.awt.*;
@@ -29,7 +30,7 @@ public class FutureWeatherGUI extends JFrame {
         String[] cities = converter.getCities();
 
         cityBox = new JComboBox<>(cities);
-        cityBox.setEditable(true);
+        CityAutoComplete.install(cityBox);
         top.add(cityBox, BorderLayout.CENTER);
 
         JButton fetchBtn = new JButton("Check Weather");
@@ -0,0 +1,123 @@
+package fuze.entity.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityGazetteerTest {
+
+    @Test
+    void bundledCities_canBeFoundWithOrWithoutAccents() {
+        CityGazetteer gazetteer = CityGazetteer.getDefault();
+
+        int montreal = gazetteer.indexOf("Montreal");
+
+        assertTrue(gazetteer.size() > 0);
+        assertTrue(montreal >= 0);
+        assertEquals(montreal, gazetteer.indexOf("Montréal"));
+        assertEquals(-73.57, gazetteer.getLongitude(montreal), 0.1);
+        assertEquals(45.5, gazetteer.getLatitude(montreal), 0.1);
+        assertEquals(-1, gazetteer.indexOf("Atlantis"));
+        assertEquals(-1, gazetteer.indexOf(null));
+    }
+
+    @Test
+    void read_skipsBadLinesAndKeepsTheFirstOfTwoNames() throws IOException {
+        String csv = "city,city_ascii,lat,lng,country\n"
+                + "Paris,Paris,48.85,2.35,\"France, Europe\"\n"
+                + "broken line\n"
+                + "Nowhere,Nowhere,north,east,X\n"
+                + "Paris,Paris,33.66,-95.55,United States\n";
+
+        CityGazetteer gazetteer = CityGazetteer.read(new StringReader(csv));
+
+        assertEquals(2, gazetteer.size());
+        assertArrayEquals(new String[]{"Paris", "Paris"}, gazetteer.getCityNames());
+        // Coordinates are stored as floats
+        assertEquals(2.35, gazetteer.getLongitude(gazetteer.indexOf("Paris")), 1e-5);
+        assertEquals(-1, gazetteer.indexOf("Nowhere"));
+    }
+
+    @Test
+    void sharedName_goesToTheMorePopulousCity() throws IOException {
+        String csv = "city,city_ascii,lat,lng,country,iso2,iso3,admin_name,capital,population,id\n"
+                + "London,London,42.98,-81.25,Canada,CA,CAN,Ontario,,383822,1\n"
+                + "London,London,51.51,-0.13,United Kingdom,GB,GBR,London,primary,11262000,2\n"
+                + "London,London,37.13,-84.08,United States,US,USA,Kentucky,,8126,3\n";
+
+        CityGazetteer gazetteer = CityGazetteer.read(new StringReader(csv));
+
+        assertEquals(1, gazetteer.indexOf("London"));
+    }
+
+    @Test
+    void rebuiltFileOfTheSameSize_hasADifferentHeader() throws IOException {
+        String csv = "city,city_ascii,lat,lng\n" + "Paris,Paris,48.85,2.35\n";
+        ByteArrayOutputStream before = new ByteArrayOutputStream();
+        ByteArrayOutputStream after = new ByteArrayOutputStream();
+
+        CityGazetteerBuilder.build(new StringReader(csv), before);
+        CityGazetteerBuilder.build(new StringReader(csv.replace("2.35", "2.36")), after);
+
+        assertEquals(before.size(), after.size());
+        assertFalse(Arrays.equals(
+                Arrays.copyOf(before.toByteArray(), CityGazetteerBuilder.HEADER),
+                Arrays.copyOf(after.toByteArray(), CityGazetteerBuilder.HEADER)));
+    }
+
+    @Test
+    void indexOf_findsEveryKeyInTheSortedTable() throws IOException {
+        String csv = "city,city_ascii,lat,lng,country,iso2,iso3,admin_name,capital,population,id\n"
+                + "Zürich,Zurich,47.37,8.54,Switzerland,CH,CHE,Zürich,admin,436332,1\n"
+                + "Ōsaka,Osaka,34.69,135.50,Japan,JP,JPN,Ōsaka,admin,19059856,2\n"
+                + "Aba,Aba,5.12,7.37,Nigeria,NG,NGA,Abia,,2534265,3\n"
+                + "Montréal,Montreal,45.50,-73.56,Canada,CA,CAN,Quebec,,3675219,4\n";
+
+        CityGazetteer gazetteer = CityGazetteer.read(new StringReader(csv));
+
+        String[] keys = {"Zürich", "Zurich", "Ōsaka", "Osaka", "Aba", "Montréal", "Montreal"};
+        int[] cities = {0, 0, 1, 1, 2, 3, 3};
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(cities[i], gazetteer.indexOf(keys[i]), keys[i]);
+        }
+        assertEquals(19059856, gazetteer.getPopulation(gazetteer.indexOf("Osaka")));
+        assertEquals(-1, gazetteer.indexOf("Ab"));
+        assertEquals(-1, gazetteer.indexOf("Zz"));
+        assertEquals(-1, gazetteer.indexOf(""));
+    }
+
+    @Test
+    void bundledBinary_matchesTheCsv() throws IOException {
+        CityGazetteer bundled = CityGazetteer.getDefault();
+        InputStream stream = getClass().getClassLoader()
+                .getResourceAsStream(CityGazetteer.CSV_RESOURCE);
+        assertNotNull(stream);
+
+        CityGazetteer fromCsv;
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            fromCsv = CityGazetteer.read(reader);
+        }
+
+        assertArrayEquals(fromCsv.getCityNames(), bundled.getCityNames(),
+                "Run CityGazetteerBuilder after changing CitiesLongLat.csv");
+    }
+
+    @Test
+    void locationStringToCoordinate_fallsBackToToronto() {
+        LocationStringToCoordinate unknown = new LocationStringToCoordinate("Atlantis");
+        LocationStringToCoordinate osaka = new LocationStringToCoordinate("Ōsaka");
+
+        assertEquals(-79.3733, unknown.getLongitude());
+        assertEquals(43.7417, unknown.getLatitude());
+        assertEquals(135.5, osaka.getLongitude(), 0.1);
+    }
+}
@@ -0,0 +1,53 @@
+package fuze.entity.location;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CitySearchIndexTest {
+
+    private CityGazetteer cities;
+    private CitySearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String csv = "city,city_ascii,lat,lng,country,iso2,iso3,admin_name,capital,population,id\n"
+                + "Toronto,Toronto,43.74,-79.37,Canada,CA,CAN,Ontario,admin,5647656,1\n"
+                + "Tokyo,Tokyo,35.68,139.75,Japan,JP,JPN,Tōkyō,primary,37785000,2\n"
+                + "Montréal,Montreal,45.50,-73.56,Canada,CA,CAN,Quebec,,3675219,3\n"
+                + "São Paulo,Sao Paulo,-23.55,-46.63,Brazil,BR,BRA,\"São Paulo, SP\",admin,22046000,4\n"
+                + "Torino,Torino,45.07,7.68,Italy,IT,ITA,Piedmont,admin,870952,5\n";
+        cities = CityGazetteer.read(new StringReader(csv));
+        index = new CitySearchIndex(cities);
+    }
+
+    @Test
+    void suggest_ranksPrefixMatchesByPopulation() {
+        assertEquals(List.of("Tokyo", "Toronto", "Torino"), index.suggest("to", 5));
+        assertEquals(List.of("Toronto", "Torino"), index.suggest("TOR", 5));
+        assertEquals(List.of("Tokyo"), index.suggest("to", 1));
+        assertEquals(List.of("Sao Paulo"), index.suggest("pau", 5));
+        assertEquals(List.of("Montreal"), index.suggest("Montré", 5));
+        assertEquals(5, index.suggest("", 10).size());
+    }
+
+    @Test
+    void suggest_fallsBackToCloseMisspellings() {
+        assertEquals(List.of("Montreal"), index.suggest("Mnotreal", 5));
+        assertEquals(List.of("Toronto"), index.suggest("Tronto", 5));
+        assertTrue(index.suggest("xyz", 5).isEmpty());
+    }
+
+    @Test
+    void bestMatch_acceptsCaseAccentsAndTypos() {
+        assertEquals("Sao Paulo", cities.getName(index.bestMatch("são paulo")));
+        assertEquals("Toronto", cities.getName(index.bestMatch("torontp")));
+        assertEquals(-1, index.bestMatch("Tor"));
+        assertEquals(-1, index.bestMatch("Toronto Canada"));
+    }
+}
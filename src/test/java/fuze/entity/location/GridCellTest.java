@@ -0,0 +1,40 @@
+package fuze.entity.location;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GridCellTest {
+
+    @Test
+    void nearbyPoints_snapToTheSameGridPoint() {
+        // Downtown Toronto and North York, ~10km apart
+        GridCell downtown = GridCell.of(-79.38, 43.67, 0.1);
+        GridCell northYork = GridCell.of(-79.41, 43.72, 0.1);
+
+        assertEquals(downtown, northYork);
+        assertEquals(downtown.hashCode(), northYork.hashCode());
+        assertEquals(-79.4, downtown.getLongitude());
+        assertEquals(43.7, downtown.getLatitude());
+        assertNotEquals(downtown, GridCell.of(-79.38, 43.64, 0.1));
+        assertNotEquals(downtown, GridCell.of(-79.38, 43.67, 0.25));
+        assertEquals(43.75, GridCell.of(-79.38, 43.67, 0.25).getLatitude());
+    }
+
+    @Test
+    void edgesOfTheMap_wrapAndClamp() {
+        assertEquals(GridCell.of(179.98, 0, 0.1), GridCell.of(-179.99, 0, 0.1));
+        assertEquals(-180.0, GridCell.of(180, 0, 0.1).getLongitude());
+        assertEquals(10.0, GridCell.of(370, 0, 0.1).getLongitude());
+        assertEquals(90.0, GridCell.of(0, 95, 0.25).getLatitude());
+        assertThrows(IllegalArgumentException.class, () -> GridCell.of(0, 0, 0.001));
+    }
+
+    @Test
+    void resolution_fallsBackToTheDefaultWhenTheSettingIsBad() {
+        assertEquals(GridCell.DEFAULT_DEGREES, GridCell.resolution(null));
+        assertEquals(0.25, GridCell.resolution(" 0.25 "));
+        assertEquals(GridCell.DEFAULT_DEGREES, GridCell.resolution("fine"));
+        assertEquals(GridCell.DEFAULT_DEGREES, GridCell.resolution("0.001"));
+    }
+}
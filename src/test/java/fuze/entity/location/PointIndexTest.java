@@ -0,0 +1,59 @@
+package fuze.entity.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PointIndexTest {
+
+    @Test
+    void nearest_matchesCheckingEveryPoint() {
+        Random random = new Random(7);
+        double[] lats = new double[2000];
+        double[] lons = new double[2000];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = random.nextDouble() * 180 - 90;
+            lons[i] = random.nextDouble() * 360 - 180;
+        }
+        PointIndex index = new PointIndex(lats, lons);
+
+        for (int q = 0; q < 200; q++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lon = random.nextDouble() * 360 - 180;
+            int expected = 0;
+            for (int i = 1; i < lats.length; i++) {
+                if (PointIndex.distanceKm(lat, lon, lats[i], lons[i])
+                        < PointIndex.distanceKm(lat, lon, lats[expected], lons[expected])) {
+                    expected = i;
+                }
+            }
+            assertEquals(expected, index.nearest(lat, lon));
+        }
+    }
+
+    @Test
+    void nearest_worksAcrossTheDateLineAndRespectsMaxKm() {
+        // Suva, Apia, Honolulu
+        PointIndex index = new PointIndex(new double[]{-18.14, -13.83, 21.31},
+                new double[]{178.44, -171.76, -157.86});
+
+        assertEquals(0, index.nearest(-17.0, -179.9));
+        assertEquals(-1, index.nearest(0, 0, 1000));
+        assertArrayEquals(new int[]{1, 0}, index.withinRadius(-14.0, -172.5, 1200));
+        assertEquals(0, new PointIndex(new double[0], new double[0]).size());
+        assertEquals(-1, new PointIndex(new double[0], new double[0]).nearest(1, 1));
+    }
+
+    @Test
+    void gazetteer_findsTheClosestCity() {
+        CityGazetteer cities = CityGazetteer.getDefault();
+
+        int city = cities.nearest(43.70, -79.40, 50);
+
+        assertEquals("Toronto", cities.getName(city));
+        assertEquals(-1, cities.nearest(0, -30, 50), "Middle of the Atlantic");
+        assertEquals(504, PointIndex.distanceKm(43.65, -79.38, 45.50, -73.57), 5);
+    }
+}
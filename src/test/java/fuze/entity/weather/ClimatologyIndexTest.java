@@ -0,0 +1,66 @@
+package fuze.entity.weather;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClimatologyIndexTest {
+
+    private static final String HEADER = "city,lat,lng" + ",h".repeat(12) + ",l".repeat(12) + ",c".repeat(12) + "\n";
+
+    private static ClimatologyIndex build(String rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ClimatologyIndexBuilder.build(new StringReader(HEADER + rows), out);
+        return ClimatologyIndex.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    void builtIndex_interpolatesBetweenMonthMiddles() throws IOException {
+        ClimatologyIndex index = build("Here,10,20,0,10,20,30,40,50,60,70,80,90,100,110,"
+                + "-10,0,10,20,30,40,50,60,70,80,90,100,"
+                + "0,0,0,61,61,61,61,61,61,22,22,22\n");
+
+        assertEquals(1, index.size());
+        WeatherDay midJanuary = index.normalDay(20, 10, LocalDate.of(2031, 1, 16));
+        assertEquals(0, midJanuary.getTemperatureHigh(), 0.01);
+        assertEquals(-10, midJanuary.getTemperatureLow(), 0.01);
+        assertEquals("Sunny", midJanuary.getWeather());
+        assertTrue(midJanuary.isNormal());
+        assertEquals("2031-01-16", midJanuary.getDate());
+
+        // Half way between mid January and mid February
+        double lastOfJanuary = index.normalDay(20, 10, LocalDate.of(2031, 1, 31)).getTemperatureHigh();
+        assertTrue(lastOfJanuary > 4 && lastOfJanuary < 6, "was " + lastOfJanuary);
+        // December wraps around to January
+        double newYearsEve = index.normalDay(20, 10, LocalDate.of(2031, 12, 31)).getTemperatureHigh();
+        assertTrue(newYearsEve > 50 && newYearsEve < 110, "was " + newYearsEve);
+        assertEquals("Raining", index.normalDay(20, 10, LocalDate.of(2031, 6, 1)).getWeather());
+    }
+
+    @Test
+    void farFromEveryCity_hasNoNormals() throws IOException {
+        ClimatologyIndex index = build("Here,10,20" + ",5".repeat(24) + ",0".repeat(12) + "\n");
+
+        assertEquals(0, index.nearestCity(21, 11));
+        assertEquals(-1, index.nearestCity(-100, -40));
+        assertNull(index.normalDay(-100, -40, LocalDate.of(2031, 1, 1)));
+    }
+
+    @Test
+    void bundledIndex_knowsTheSeasons() {
+        ClimatologyIndex index = ClimatologyIndex.getDefault();
+        assertTrue(index.size() > 50);
+
+        LocalDate july = LocalDate.of(2030, 7, 15);
+        WeatherDay toronto = index.normalDay(-79.38, 43.65, july);
+        WeatherDay sydney = index.normalDay(151.2, -33.87, july);
+        assertTrue(toronto.getTemperatureHigh() > sydney.getTemperatureHigh());
+        assertTrue(index.normalDay(-79.38, 43.65, LocalDate.of(2030, 1, 15)).getTemperatureHigh() < 5);
+    }
+}
@@ -0,0 +1,136 @@
+package fuze.entity.weather;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastSeriesTest {
+
+    private static final LocalDate MARCH_1 = LocalDate.of(2025, 3, 1);
+
+    // Day i of the series has a high of first + i
+    private static ForecastSeries series(final LocalDate start, final int days,
+                                         final double first) {
+        double[] highs = new double[days];
+        double[] lows = new double[days];
+        int[] codes = new int[days];
+        for (int i = 0; i < days; i++) {
+            highs[i] = first + i;
+            lows[i] = first + i - 10;
+            codes[i] = i;
+        }
+        return new ForecastSeries(-79.38, 43.65, start, highs, lows, codes);
+    }
+
+    private static ForecastSeries empty(final LocalDate start) {
+        return new ForecastSeries(-79.38, 43.65, start, new double[0],
+                new double[0], new int[0]);
+    }
+
+    @Test
+    void indexOf_andEndDate_followTheStartDate() {
+        ForecastSeries s = series(MARCH_1, 5, 0);
+
+        assertEquals(LocalDate.of(2025, 3, 5), s.getEndDate());
+        assertEquals(0, s.indexOf(MARCH_1));
+        assertEquals(4, s.indexOf(LocalDate.of(2025, 3, 5)));
+        assertEquals(-1, s.indexOf(LocalDate.of(2025, 2, 28)));
+        assertEquals(-1, s.indexOf(LocalDate.of(2025, 3, 6)));
+        assertThrows(IndexOutOfBoundsException.class, () -> s.getHigh(5));
+        assertNull(s.getWeatherDay(LocalDate.of(2025, 3, 6)));
+    }
+
+    @Test
+    void slice_keepsOnlyTheDaysItHas() {
+        ForecastSeries s = series(MARCH_1, 5, 0);
+
+        ForecastSeries middle = s.slice(LocalDate.of(2025, 3, 2), 2);
+        assertEquals(LocalDate.of(2025, 3, 2), middle.getStartDate());
+        assertEquals(2, middle.size());
+        assertEquals(1.0, middle.getHigh(0));
+
+        ForecastSeries overEnd = s.slice(LocalDate.of(2025, 3, 4), 10);
+        assertEquals(LocalDate.of(2025, 3, 4), overEnd.getStartDate());
+        assertEquals(2, overEnd.size());
+
+        ForecastSeries beforeStart = s.slice(LocalDate.of(2025, 2, 27), 4);
+        assertEquals(MARCH_1, beforeStart.getStartDate());
+        assertEquals(2, beforeStart.size());
+        assertEquals(0.0, beforeStart.getHigh(0));
+    }
+
+    @Test
+    void sliceOutsideTheSeries_isEmpty() {
+        ForecastSeries s = series(MARCH_1, 5, 0);
+
+        ForecastSeries after = s.slice(LocalDate.of(2025, 3, 10), 3);
+        assertTrue(after.isEmpty());
+        assertEquals(LocalDate.of(2025, 3, 10), after.getStartDate());
+        assertEquals(LocalDate.of(2025, 3, 9), after.getEndDate());
+        assertTrue(s.slice(LocalDate.of(2025, 2, 1), 5).isEmpty());
+        assertTrue(s.slice(MARCH_1, 0).isEmpty());
+    }
+
+    @Test
+    void overlappingMerge_newerDaysWin() {
+        ForecastSeries older = series(MARCH_1, 5, 0);
+        ForecastSeries newer = series(LocalDate.of(2025, 3, 4), 4, 100);
+
+        ForecastSeries merged = older.mergedWith(newer);
+
+        assertEquals(MARCH_1, merged.getStartDate());
+        assertEquals(7, merged.size());
+        assertEquals(2.0, merged.getHigh(2));
+        assertEquals(100.0, merged.getHigh(3));
+        assertEquals(103.0, merged.getHigh(6));
+        assertEquals(93.0, merged.getLow(6));
+    }
+
+    @Test
+    void newerStartingEarlier_stillCoversBoth() {
+        ForecastSeries older = series(LocalDate.of(2025, 3, 4), 3, 0);
+        ForecastSeries newer = series(MARCH_1, 3, 100);
+
+        ForecastSeries merged = older.mergedWith(newer);
+
+        assertEquals(MARCH_1, merged.getStartDate());
+        assertEquals(6, merged.size());
+        assertEquals(102.0, merged.getHigh(2));
+        assertEquals(0.0, merged.getHigh(3));
+    }
+
+    @Test
+    void gapBetweenSeries_isRefused() {
+        ForecastSeries older = series(MARCH_1, 3, 0);
+        ForecastSeries later = series(LocalDate.of(2025, 3, 5), 3, 100);
+
+        assertFalse(older.touches(later));
+        assertFalse(later.touches(older));
+        assertThrows(IllegalArgumentException.class,
+                () -> older.mergedWith(later));
+    }
+
+    @Test
+    void emptySeries_mergeToTheOther() {
+        ForecastSeries s = series(MARCH_1, 3, 0);
+        ForecastSeries none = empty(LocalDate.of(2025, 6, 1));
+
+        assertTrue(s.touches(none));
+        assertSame(s, s.mergedWith(none));
+        assertSame(s, none.mergedWith(s));
+        assertTrue(none.mergedWith(empty(MARCH_1)).isEmpty());
+    }
+
+    @Test
+    void staleness_survivesSliceAndMerge() {
+        ForecastSeries stale = series(MARCH_1, 5, 0).asStale();
+        ForecastSeries fresh = series(LocalDate.of(2025, 3, 6), 2, 0);
+
+        assertTrue(stale.slice(LocalDate.of(2025, 3, 2), 2).isStale());
+        assertTrue(stale.mergedWith(fresh).isStale());
+        assertTrue(fresh.mergedWith(stale).isStale());
+        assertFalse(fresh.slice(LocalDate.of(2025, 3, 6), 1).isStale());
+    }
+}
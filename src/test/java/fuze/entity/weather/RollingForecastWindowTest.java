@@ -0,0 +1,188 @@
+package fuze.entity.weather;
+
+import fuze.framework.weatherapi.ForecastKey;
+import fuze.framework.weatherapi.ForecastMemoryCache;
+import fuze.framework.weatherapi.ForecastSnapshotStore;
+import fuze.framework.weatherapi.ForecastStore;
+import fuze.framework.weatherapi.WeatherFetcher;
+import fuze.framework.weatherapi.WeatherProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingForecastWindowTest {
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private WeatherProvider original;
+
+    @BeforeEach
+    void useFakeProvider() {
+        original = WeatherFetcher.getProvider();
+        WeatherFetcher.setProvider((lon, lat, start, days) -> {
+            requests.add(start + "+" + days);
+            return CompletableFuture.completedFuture(new ForecastSeries(lon, lat,
+                    LocalDate.parse(start), new double[days + 1],
+                    new double[days + 1], new int[days + 1]));
+        });
+    }
+
+    @AfterEach
+    void restoreProvider() {
+        WeatherFetcher.setProvider(original);
+    }
+
+    // Day i has a high of i
+    static ForecastSeries series(final double lon, final double lat,
+                                 final LocalDate start, final int days) {
+        double[] highs = new double[days];
+        for (int i = 0; i < days; i++) {
+            highs[i] = i;
+        }
+        return new ForecastSeries(lon, lat, start, highs, new double[days], new int[days]);
+    }
+
+    // Puts it in the forecast store (under target/ for the tests) and waits
+    // for it to be written
+    static void store(final ForecastSeries series) {
+        ForecastStore store = ForecastStore.getDefault();
+        store.put(new ForecastKey(series.getLongitude(), series.getLatitude(),
+                series.getStartDate().toString(), series.size() - 1), series);
+        if (store instanceof ForecastSnapshotStore) {
+            ((ForecastSnapshotStore) store).flush();
+        }
+    }
+
+    @Test
+    void nextDay_onlyFetchesTheNewLastDay() {
+        RollingForecastWindow window =
+                new RollingForecastWindow("Toronto", -79.38, 43.65, 7);
+        LocalDate monday = LocalDate.of(2025, 3, 3);
+
+        WeatherWeek first = window.refresh(monday).join();
+        WeatherWeek sameDay = window.refresh(monday).join();
+        WeatherWeek next = window.refresh(monday.plusDays(1)).join();
+
+        assertEquals(List.of("2025-03-03+6", "2025-03-10+0"), requests);
+        assertEquals(7, first.size());
+        assertEquals(7, sameDay.size());
+        assertEquals("2025-03-04", next.getWeatherDay(0).getDate());
+        assertEquals("2025-03-10", next.getWeatherDay(6).getDate());
+        assertEquals("Toronto", next.getDefaultLocation());
+    }
+
+    @Test
+    void longGap_refetchesTheWholeWindow() {
+        RollingForecastWindow window =
+                new RollingForecastWindow("Toronto", -79.38, 43.65, 7);
+        LocalDate start = LocalDate.of(2025, 3, 3);
+
+        window.refresh(start).join();
+        WeatherWeek later = window.refresh(start.plusDays(30)).join();
+
+        assertEquals(List.of("2025-03-03+6", "2025-04-02+6"), requests);
+        assertEquals("2025-04-02", later.getWeatherDay(0).getDate());
+        assertEquals(7, window.getDays(start.plusDays(30)).size());
+        assertTrue(window.getDays(start).isEmpty());
+    }
+
+    @Test
+    void getWeek_onlyShowsWhatIsHeld_withoutFetching() {
+        RollingForecastWindow window =
+                new RollingForecastWindow("Toronto", -79.38, 43.65, 7);
+        LocalDate today = LocalDate.of(2025, 3, 10);
+
+        assertEquals(0, window.getWeek(today).size());
+        window.refresh(today).join();
+        int fetched = requests.size();
+
+        WeatherWeek week = window.getWeek(today);
+        assertEquals(7, week.size());
+        assertEquals("Toronto", week.getDefaultLocation());
+        assertEquals(fetched, requests.size());
+    }
+
+    @Test
+    void expiredDays_areFetchedAgain() {
+        RollingForecastWindow window =
+                new RollingForecastWindow("Toronto", -79.38, 43.65, 7, Duration.ofHours(1));
+        LocalDate monday = LocalDate.of(2025, 3, 3);
+
+        window.refresh(monday).join();
+        assertFalse(window.needsRefresh(monday));
+        window.setTimeToLive(Duration.ofMillis(-1));
+
+        assertTrue(window.needsRefresh(monday));
+        assertTrue(window.getWeek(monday).isStale());
+        // Still shown while they're being fetched again
+        assertEquals(7, window.getWeek(monday).size());
+        // The memory cache has the same time to live, so it'd be out by now too
+        ForecastMemoryCache.getShared().clear();
+        window.refresh(monday).join();
+        assertEquals(List.of("2025-03-03+6", "2025-03-03+6"), requests);
+    }
+
+    @Test
+    void firstUse_startsFromTheCachedForecast() {
+        LocalDate today = LocalDate.of(2025, 3, 3);
+        ForecastMemoryCache.getShared().put(new ForecastKey(115.86, -31.95, "2025-03-03", 6),
+                series(115.86, -31.95, today, 7));
+        RollingForecastWindow window =
+                new RollingForecastWindow("Perth", 115.86, -31.95, 7, Duration.ofHours(1));
+
+        WeatherWeek week = window.getWeek(today);
+
+        assertEquals(7, week.size());
+        assertFalse(week.isStale());
+        window.refresh(today).join();
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void firstUse_withAnOldForecast_showsItThenFetchesTheWindow() {
+        LocalDate today = LocalDate.of(2025, 3, 3);
+        store(series(-21.94, 64.15, today, 4));
+        RollingForecastWindow window =
+                new RollingForecastWindow("Reykjavik", -21.94, 64.15, 7, Duration.ofHours(1));
+
+        WeatherWeek cached = window.getWeek(today);
+        WeatherWeek fresh = window.refresh(today).join();
+
+        assertEquals(4, cached.size());
+        assertEquals(3.0, cached.getWeatherDay(3).getTemperatureHigh());
+        assertTrue(cached.isStale());
+        assertEquals(List.of("2025-03-03+6"), requests);
+        assertEquals(7, fresh.size());
+        assertFalse(fresh.isStale());
+    }
+
+    @Test
+    void staleFallback_neverReplacesAHeldDay() {
+        WeatherFetcher.setProvider((lon, lat, start, days) -> CompletableFuture.completedFuture(
+                series(lon, lat, LocalDate.parse(start), days + 1).asStale()));
+        RollingForecastWindow window =
+                new RollingForecastWindow("Toronto", -79.38, 43.65, 7, Duration.ofHours(1));
+        LocalDate monday = LocalDate.of(2025, 3, 3);
+
+        WeatherWeek week = window.refresh(monday).join();
+
+        assertEquals(7, week.size());
+        assertTrue(week.isStale());
+        assertTrue(window.needsRefresh(monday));
+    }
+
+    @Test
+    void namesOfTheSamePlace_shareOneWindow() {
+        RollingForecastWindow window = RollingForecastWindow.forLocation("Toronto");
+
+        assertSame(window, RollingForecastWindow.forLocation("Toronto"));
+        assertSame(window, RollingForecastWindow.forLocation("toronto"));
+    }
+}
@@ -0,0 +1,34 @@
+package fuze.entity.weather;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherConditionTest {
+
+    @Test
+    void codes_mapLikeTheyAlwaysDid() {
+        assertEquals(WeatherCondition.SUNNY, WeatherCondition.fromCode(0));
+        assertEquals(WeatherCondition.SCATTERED_CLOUDS, WeatherCondition.fromCode(2));
+        assertEquals(WeatherCondition.CLOUDY, WeatherCondition.fromCode(3));
+        assertEquals(WeatherCondition.CLOUDY, WeatherCondition.fromCode(45));
+        assertEquals(WeatherCondition.SNOWING, WeatherCondition.fromCode(22));
+        assertEquals(WeatherCondition.RAINING, WeatherCondition.fromCode(61));
+        assertEquals(WeatherCondition.RAINING, WeatherCondition.fromCode(200));
+        assertEquals(WeatherCondition.NO_DATA, WeatherCondition.fromCode(201));
+        assertEquals(WeatherCondition.NO_DATA, WeatherCondition.fromCode(-1));
+    }
+
+    @Test
+    void day_readsConditionAndLocationFromFields() {
+        WeatherDay rainy = new WeatherDay(63, 12.0, 8.0, -79.4, 43.7, "2025-11-27");
+        WeatherDay nowhere = new WeatherDay(0, 12.0, 8.0, null, "2025-11-27");
+
+        assertTrue(rainy.isRaining());
+        assertEquals("Raining", rainy.getWeather());
+        assertArrayEquals(new double[]{-79.4, 43.7}, rainy.getLocation());
+        assertFalse(nowhere.isRaining());
+        assertFalse(nowhere.hasLocation());
+        assertNull(nowhere.getLocation());
+    }
+}
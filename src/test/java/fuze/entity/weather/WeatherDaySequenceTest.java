@@ -0,0 +1,67 @@
+package fuze.entity.weather;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherDaySequenceTest {
+
+    private static WeatherDay day(String date) {
+        return new WeatherDay(0, 20.0, 10.0, new double[]{0.0, 0.0}, date);
+    }
+
+    private static WeatherDaySequence week() {
+        List<WeatherDay> days = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            days.add(day(LocalDate.of(2025, 3, 1).plusDays(i).toString()));
+        }
+        return WeatherDaySequence.of(days);
+    }
+
+    @Test
+    void positionsAndDates_lookedUpDirectly() {
+        WeatherDaySequence week = week();
+
+        assertEquals(7, week.size());
+        assertEquals("2025-03-04", week.get(3).getDate());
+        assertNull(week.get(7));
+        assertNull(week.get(-1));
+        assertSame(week.get(2), week.get(LocalDate.of(2025, 3, 3)));
+        assertNull(week.get(LocalDate.of(2025, 3, 8)));
+        assertEquals(-1, week.indexOf(LocalDate.of(2025, 2, 28)));
+    }
+
+    @Test
+    void slices_shareDaysAndKeepDateLookups() {
+        WeatherDaySequence week = week();
+
+        WeatherDaySequence middle = week.slice(2, 5);
+        assertEquals(3, middle.size());
+        assertSame(week.get(2), middle.get(0));
+        assertSame(week.get(4), middle.get(LocalDate.of(2025, 3, 5)));
+        assertNull(middle.get(LocalDate.of(2025, 3, 6)));
+
+        WeatherDaySequence end = week.slice(LocalDate.of(2025, 3, 6), 10);
+        assertEquals(2, end.size());
+        assertEquals("2025-03-06", end.get(0).getDate());
+        assertTrue(week.slice(LocalDate.of(2025, 4, 1), 3).isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> week.slice(3, 8));
+    }
+
+    @Test
+    void gapsInDates_stillFound() {
+        WeatherDaySequence days = WeatherDaySequence.of(Arrays.asList(
+                day("2025-03-01"), null, day("2025-03-05"), day("not a date")));
+
+        assertEquals(3, days.size());
+        assertEquals(1, days.indexOf(LocalDate.of(2025, 3, 5)));
+        assertNull(days.get(LocalDate.of(2025, 3, 2)));
+        assertEquals(4, days.with(day("2025-03-09")).size());
+        assertEquals(3, days.size());
+    }
+}
@@ -0,0 +1,115 @@
+package fuze.entity.weather;
+
+import fuze.framework.weatherapi.WeatherFetcher;
+import fuze.framework.weatherapi.WeatherProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherTripTest {
+
+    private final List<CompletableFuture<ForecastSeries>> requests =
+            new CopyOnWriteArrayList<>();
+    private WeatherProvider original;
+
+    @BeforeEach
+    void useFakeProvider() {
+        original = WeatherFetcher.getProvider();
+        // Every request is left hanging until the test answers it
+        WeatherFetcher.setProvider((lon, lat, start, days) -> {
+            CompletableFuture<ForecastSeries> answer = new CompletableFuture<>();
+            requests.add(answer);
+            return answer.thenApply(series -> new ForecastSeries(lon, lat,
+                    LocalDate.parse(start), new double[days + 1],
+                    new double[days + 1], new int[days + 1]));
+        });
+    }
+
+    @AfterEach
+    void restoreProvider() {
+        WeatherFetcher.setProvider(original);
+    }
+
+    @Test
+    void lazy_fetchesNothingUntilLoaded() {
+        String start = LocalDate.now().plusDays(1).toString();
+        WeatherTrip trip = WeatherTrip.lazy(-79.38, 43.65, start, 3);
+
+        assertTrue(requests.isEmpty());
+        CompletableFuture<WeatherTrip> loaded = trip.load();
+        assertEquals(1, requests.size());
+        trip.load();
+        assertEquals(1, requests.size(), "Loading twice shouldn't fetch twice");
+        assertFalse(loaded.isDone());
+
+        requests.get(0).complete(null);
+        assertSame(trip, loaded.join());
+        assertEquals(3, trip.size());
+        assertEquals(start, trip.getWeatherDay(0).getDate());
+    }
+
+    @Test
+    void gettersOnAPendingTrip_startTheFetchWithoutWaiting() {
+        String start = LocalDate.now().plusDays(1).toString();
+        WeatherTrip trip = WeatherTrip.lazy(-79.38, 43.65, start, 3);
+
+        assertEquals(0, trip.size());
+        assertNull(trip.getWeatherDay(0));
+        assertTrue(trip.isPending());
+        assertEquals(1, requests.size());
+
+        requests.get(0).complete(null);
+        assertFalse(trip.isPending());
+        assertEquals(3, trip.size());
+    }
+
+    @Test
+    void loadAll_fetchesSeveralSideBySide() {
+        String start = LocalDate.now().toString();
+        WeatherTrip paris = WeatherTrip.lazy(2.35, 48.86, start, 2);
+        WeatherTrip tokyo = WeatherTrip.lazy(139.69, 35.69, start, 4);
+
+        CompletableFuture<Void> both = WeatherDays.loadAll(paris, tokyo);
+
+        assertEquals(2, requests.size(), "Both should be in flight at once");
+        requests.forEach(request -> request.complete(null));
+        both.join();
+        assertEquals(2, paris.size());
+        assertEquals(4, tokyo.size());
+    }
+
+    @Test
+    void failedForecast_fallsBackOnNormalsThatSaySo() {
+        String start = LocalDate.now().plusDays(1).toString();
+        WeatherTrip trip = WeatherTrip.lazy(-79.38, 43.65, start, 3);
+        CompletableFuture<WeatherTrip> loaded = trip.load();
+
+        requests.get(0).completeExceptionally(new RuntimeException("offline"));
+        loaded.join();
+
+        assertEquals(3, trip.size());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(trip.getWeatherDay(i).isNormal());
+        }
+    }
+
+    @Test
+    void forecastDays_arentNormals() {
+        String start = LocalDate.now().plusDays(1).toString();
+        WeatherTrip trip = WeatherTrip.lazy(-79.38, 43.65, start, 3);
+        CompletableFuture<WeatherTrip> loaded = trip.load();
+
+        requests.get(0).complete(null);
+        loaded.join();
+
+        assertFalse(trip.getWeatherDay(0).isNormal());
+        assertFalse(trip.getWeatherDay(2).isNormal());
+    }
+}
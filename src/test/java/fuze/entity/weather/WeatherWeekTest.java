@@ -0,0 +1,94 @@
+package fuze.entity.weather;
+
+import fuze.framework.weatherapi.WeatherFetcher;
+import fuze.framework.weatherapi.WeatherProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherWeekTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 3);
+
+    // Answered by the test, so it can look at the week before and after
+    private final CompletableFuture<ForecastSeries> answer = new CompletableFuture<>();
+    private WeatherProvider original;
+
+    @BeforeEach
+    void useFakeProvider() {
+        original = WeatherFetcher.getProvider();
+        WeatherFetcher.setProvider((lon, lat, start, days) -> answer);
+    }
+
+    @AfterEach
+    void restoreProvider() {
+        WeatherFetcher.setProvider(original);
+    }
+
+    private static RollingForecastWindow lima() {
+        // An old forecast of the first 4 days is all that's saved
+        RollingForecastWindowTest.store(RollingForecastWindowTest.series(-77.04, -12.05, TODAY, 4));
+        return new RollingForecastWindow("Lima", -77.04, -12.05, 7, Duration.ofHours(1));
+    }
+
+    @Test
+    void staleWhileRevalidate_showsTheOldForecast_thenTheFreshOne() {
+        WeatherWeek week = WeatherWeek.staleWhileRevalidate(lima(), "Lima Peru", TODAY);
+        List<WeatherWeek> refreshed = new CopyOnWriteArrayList<>();
+        week.addRefreshListener(refreshed::add);
+
+        assertTrue(week.isStale());
+        assertEquals(4, week.size());
+        assertTrue(refreshed.isEmpty());
+
+        answer.complete(RollingForecastWindowTest.series(-77.04, -12.05, TODAY, 7));
+
+        assertFalse(week.isStale());
+        assertEquals(7, week.size());
+        assertEquals("Lima Peru", week.getDefaultLocation());
+        assertEquals(List.of(week), refreshed);
+    }
+
+    @Test
+    void savedDataFromTheProvider_staysStale() {
+        WeatherWeek week = WeatherWeek.staleWhileRevalidate(lima(), "Lima Peru", TODAY);
+
+        answer.complete(RollingForecastWindowTest.series(-77.04, -12.05, TODAY, 7).asStale());
+
+        assertTrue(week.isStale());
+        assertEquals(7, week.size());
+    }
+
+    @Test
+    void failedRefresh_keepsTheOldForecast() {
+        WeatherWeek week = WeatherWeek.staleWhileRevalidate(lima(), "Lima Peru", TODAY);
+        List<WeatherWeek> refreshed = new CopyOnWriteArrayList<>();
+        week.addRefreshListener(refreshed::add);
+
+        answer.completeExceptionally(new RuntimeException("offline"));
+
+        assertTrue(week.isStale());
+        assertEquals(4, week.size());
+        assertEquals(List.of(week), refreshed);
+    }
+
+    @Test
+    void freshWindow_isNotRevalidated() {
+        RollingForecastWindow window = lima();
+        answer.complete(RollingForecastWindowTest.series(-77.04, -12.05, TODAY, 7));
+        window.refresh(TODAY).join();
+
+        WeatherWeek week = WeatherWeek.staleWhileRevalidate(window, "Lima Peru", TODAY);
+
+        assertFalse(week.isStale());
+        assertEquals(7, week.size());
+    }
+}
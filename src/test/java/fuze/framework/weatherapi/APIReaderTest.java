@@ -0,0 +1,127 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class APIReaderTest {
+
+    private OpenMeteoStubServer stub;
+    private APIReader reader;
+
+    @BeforeEach
+    void start() throws Exception {
+        stub = new OpenMeteoStubServer(0, 4, 1);
+        stub.start();
+        reader = new APIReader(stub.getBaseUrl());
+    }
+
+    @AfterEach
+    void stop() {
+        stub.stop();
+    }
+
+    // Location i is at latitude i / 10, so each answer says where it's from
+    private static double[] latitudes(int count) {
+        double[] lats = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = i / 10.0;
+        }
+        return lats;
+    }
+
+    @Test
+    void batch_isSentAHundredAtATime_andSplitBackInOrder() {
+        double[] lats = latitudes(250);
+        double[] lons = new double[250];
+
+        List<ForecastSeries> all = reader.readForecastBatch(lons, lats, "2025-07-01", 2).join();
+
+        assertEquals(3, stub.getRequestCount());
+        assertEquals(250, all.size());
+        for (int i = 0; i < 250; i++) {
+            assertEquals(lats[i], all.get(i).getLatitude(), 1e-9);
+            assertEquals(3, all.get(i).size());
+        }
+    }
+
+    @Test
+    void exactlyAHundred_isOneRequest() {
+        List<ForecastSeries> all = reader.readForecastBatch(new double[100], latitudes(100),
+                "2025-07-01", 2).join();
+
+        assertEquals(1, stub.getRequestCount());
+        assertEquals(100, all.size());
+        assertEquals(9.9, all.get(99).getLatitude(), 1e-9);
+    }
+
+    @Test
+    void errorObjectForAChunk_givesNullsForThatChunkOnly() {
+        double[] lats = latitudes(250);
+        // Out of range, so the stub answers the second chunk with one error
+        // object instead of an array
+        lats[150] = 95;
+
+        List<ForecastSeries> all = reader.readForecastBatch(new double[250], lats,
+                "2025-07-01", 2).join();
+
+        assertEquals(250, all.size());
+        assertNotNull(all.get(99));
+        for (int i = 100; i < 200; i++) {
+            assertNull(all.get(i));
+        }
+        assertNotNull(all.get(200));
+    }
+
+    @Test
+    void errorObjectForTwoLocations_givesTwoNulls() {
+        stub.setErrorRate(1);
+
+        List<ForecastSeries> all = reader.readForecastBatch(new double[2], latitudes(2),
+                "2025-07-01", 2).join();
+
+        assertEquals(2, all.size());
+        assertNull(all.get(0));
+        assertNull(all.get(1));
+    }
+
+    @Test
+    void readAPI_givesTheForecast() throws Exception {
+        ForecastSeries forecast = reader.readAPI(-79.38, 43.65, "2025-07-01");
+
+        assertEquals(8, forecast.size());
+        assertEquals(43.65, forecast.getLatitude(), 1e-9);
+    }
+
+    @Test
+    void readAPI_throwsOnAnErrorReply() {
+        stub.setErrorRate(1);
+
+        assertThrows(IOException.class, () -> reader.readAPI(-79.38, 43.65, "2025-07-01"));
+    }
+
+    @Test
+    void readAPI_throwsWhenTheServerIsGone() {
+        stub.stop();
+
+        assertThrows(IOException.class, () -> reader.readAPI(-79.38, 43.65, "2025-07-01"));
+    }
+
+    @Test
+    void readForecastAsync_failsTheFutureWhenTheServerIsGone() {
+        stub.stop();
+
+        CompletableFuture<ForecastSeries> future =
+                reader.readForecastAsync(-79.38, 43.65, "2025-07-01", 6);
+
+        assertThrows(CompletionException.class, future::join);
+    }
+}
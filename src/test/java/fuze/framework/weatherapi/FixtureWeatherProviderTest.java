@@ -0,0 +1,57 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixtureWeatherProviderTest {
+
+    @TempDir
+    Path dir;
+
+    private void record(String name, double high) throws Exception {
+        ForecastSeries f = new ForecastSeries(-79.38, 43.65, LocalDate.of(2024, 3, 1),
+                new double[]{high, high + 1}, new double[]{-2, -3}, new int[]{61, 3});
+        Files.writeString(dir.resolve(name), ForecastDecoder.encode(f));
+    }
+
+    @Test
+    void matchingFixture_isReplayedFromTheRequestedDate() throws Exception {
+        record("43.65_-79.38.json", 10);
+        FixtureWeatherProvider provider = new FixtureWeatherProvider(dir);
+
+        ForecastSeries f = provider.fetch(-79.38, 43.65, "2025-06-10", 2).join();
+
+        assertEquals(3, f.size());
+        assertEquals(LocalDate.of(2025, 6, 10), f.getStartDate());
+        assertEquals(10, f.getHigh(0));
+        assertEquals(11, f.getHigh(1));
+        assertEquals(10, f.getHigh(2));
+        assertEquals(3, f.getWeatherCode(1));
+    }
+
+    @Test
+    void unknownLocation_usesDefaultFixture() throws Exception {
+        record("43.65_-79.38.json", 10);
+        record("default.json", 20);
+        FixtureWeatherProvider provider = new FixtureWeatherProvider(dir);
+
+        ForecastSeries f = provider.fetch(2.35, 48.86, "2025-06-10", 6).join();
+
+        assertEquals(20, f.getHigh(0));
+        assertEquals(48.86, f.getLatitude());
+    }
+
+    @Test
+    void noFixture_givesNull() {
+        FixtureWeatherProvider provider = new FixtureWeatherProvider(dir);
+
+        assertNull(provider.fetch(2.35, 48.86, "2025-06-10", 6).join());
+    }
+}
@@ -0,0 +1,130 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastDecoderTest {
+
+    private static final String TORONTO = "{\"latitude\":43.64,\"longitude\":-79.38,"
+            + "\"generationtime_ms\":0.05,\"timezone\":\"America/Toronto\","
+            + "\"daily_units\":{\"time\":\"iso8601\",\"temperature_2m_max\":\"\\u00b0C\"},"
+            + "\"daily\":{\"time\":[\"2025-11-27\",\"2025-11-28\",\"2025-11-29\"],"
+            + "\"temperature_2m_max\":[4.2,-0.5,null],"
+            + "\"weather_code\":[61,3,null],"
+            + "\"temperature_2m_min\":[-1.3,-6.75,1e1]}}";
+
+    @Test
+    void singleLocation_decodesEveryDay() throws IOException {
+        ForecastSeries f = ForecastDecoder.decode(new StringReader(TORONTO));
+
+        assertNotNull(f);
+        assertEquals(3, f.size());
+        assertEquals(43.64, f.getLatitude());
+        assertEquals(-79.38, f.getLongitude());
+        assertEquals(LocalDate.of(2025, 11, 28), f.getDate(1));
+        assertEquals(4.2, f.getHigh(0));
+        assertEquals(-0.5, f.getHigh(1));
+        assertTrue(Double.isNaN(f.getHigh(2)));
+        assertEquals(-6.75, f.getLow(1));
+        assertEquals(10.0, f.getLow(2));
+        assertEquals(61, f.getWeatherCode(0));
+        assertEquals(0, f.getWeatherCode(2));
+        assertEquals(2, f.indexOf(LocalDate.of(2025, 11, 29)));
+        assertEquals(-1, f.indexOf(LocalDate.of(2025, 11, 30)));
+        assertEquals("2025-11-28", f.getWeatherDay(1).getDate());
+    }
+
+    @Test
+    void multipleLocations_keepOrder() throws IOException {
+        String body = "[" + TORONTO + ",{\"error\":true,\"reason\":\"bad\"}," + TORONTO + "]";
+
+        List<ForecastSeries> all = ForecastDecoder.decodeAll(new StringReader(body));
+
+        assertEquals(3, all.size());
+        assertNotNull(all.get(0));
+        assertNull(all.get(1));
+        assertEquals(3, all.get(2).size());
+    }
+
+    @Test
+    void errorReply_givesNull() throws IOException {
+        String body = "{\"error\":true,\"reason\":\"Parameter 'start_date' is out of range\"}";
+
+        assertNull(ForecastDecoder.decode(new StringReader(body)));
+    }
+
+    @Test
+    void encode_readsBackTheSame() throws IOException {
+        ForecastSeries f = ForecastDecoder.decode(new StringReader(TORONTO));
+
+        ForecastSeries copy = ForecastDecoder.decode(new StringReader(ForecastDecoder.encode(f)));
+
+        assertEquals(f.size(), copy.size());
+        for (int i = 0; i < f.size(); i++) {
+            assertEquals(f.getDate(i), copy.getDate(i));
+            assertEquals(f.getHigh(i), copy.getHigh(i));
+            assertEquals(f.getLow(i), copy.getLow(i));
+            assertEquals(f.getWeatherCode(i), copy.getWeatherCode(i));
+        }
+    }
+
+    @Test
+    void brokenJson_throws() {
+        assertThrows(IOException.class,
+                () -> ForecastDecoder.decode(new StringReader("{\"daily\":{\"time\":[")));
+    }
+
+    @Test
+    void dailyArraysOfDifferentLengths_throw() {
+        String body = TORONTO.replace("[-1.3,-6.75,1e1]", "[-1.3,-6.75]");
+
+        assertThrows(IOException.class,
+                () -> ForecastDecoder.decode(new StringReader(body)));
+    }
+
+    @Test
+    void missingDay_throws() {
+        String body = TORONTO.replace("\"2025-11-28\"", "\"2025-11-30\"");
+
+        assertThrows(IOException.class,
+                () -> ForecastDecoder.decode(new StringReader(body)));
+    }
+
+    @Test
+    void truncatedNumbers_throwIOException() {
+        for (String bad : new String[]{"4.", "-", "1e", "1e+", "--1"}) {
+            String body = TORONTO.replace("[4.2,", "[" + bad + ",");
+
+            assertThrows(IOException.class,
+                    () -> ForecastDecoder.decode(new StringReader(body)), bad);
+        }
+    }
+
+    @Test
+    void badDates_throwIOException() {
+        for (String bad : new String[]{"2025-13-45", "2025-1x-28", "20:5-11-28", "yesterday"}) {
+            String body = TORONTO.replace("2025-11-28", bad);
+
+            assertThrows(IOException.class,
+                    () -> ForecastDecoder.decode(new StringReader(body)), bad);
+        }
+    }
+
+    @Test
+    void badUnicodeEscape_throwsIOException() {
+        String body = TORONTO.replace("\\u00b0C", "\\u12G4");
+        String cut = TORONTO.substring(0, TORONTO.indexOf("\\u00b0") + 4);
+
+        assertThrows(IOException.class,
+                () -> ForecastDecoder.decode(new StringReader(body)));
+        assertThrows(IOException.class,
+                () -> ForecastDecoder.decode(new StringReader(cut)));
+    }
+}
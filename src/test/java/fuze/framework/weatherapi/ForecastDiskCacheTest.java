@@ -0,0 +1,102 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastDiskCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private static ForecastSeries forecast() {
+        return new ForecastSeries(-79.38, 43.65, LocalDate.of(2025, 1, 1),
+                new double[]{5.5}, new double[]{-1.25}, new int[]{61});
+    }
+
+    @Test
+    void freshEntry_isReturned() {
+        ForecastDiskCache cache = new ForecastDiskCache(dir, Duration.ofMinutes(5));
+        ForecastKey key = new ForecastKey(-79.38, 43.65, "2025-01-01", 6);
+
+        cache.put(key, forecast());
+
+        ForecastSeries cached = cache.get(key);
+        assertNotNull(cached);
+        assertEquals(1, cached.size());
+        assertEquals(LocalDate.of(2025, 1, 1), cached.getDate(0));
+        assertEquals(5.5, cached.getHigh(0));
+        assertEquals(-1.25, cached.getLow(0));
+        assertEquals(61, cached.getWeatherCode(0));
+    }
+
+    @Test
+    void nearbyCoordinates_shareEntry() {
+        ForecastDiskCache cache = new ForecastDiskCache(dir, Duration.ofMinutes(5));
+        cache.put(new ForecastKey(-79.381, 43.651, "2025-01-01", 6), forecast());
+
+        assertNotNull(cache.get(new ForecastKey(-79.379, 43.649, "2025-01-01", 6)));
+        assertNull(cache.get(new ForecastKey(-79.379, 43.649, "2025-01-02", 6)));
+    }
+
+    @Test
+    void expiredEntry_isIgnored() {
+        ForecastDiskCache cache = new ForecastDiskCache(dir, Duration.ofMinutes(5));
+        ForecastKey key = new ForecastKey(1.0, 2.0, "2025-01-01", 6);
+
+        cache.put(key, forecast());
+        assertNotNull(cache.get(key));
+        cache.setTimeToLive(Duration.ofMillis(-1));
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void missingForecast_isNotStored() {
+        ForecastDiskCache cache = new ForecastDiskCache(dir, Duration.ofMinutes(5));
+        ForecastKey key = new ForecastKey(1.0, 2.0, "2025-01-01", 6);
+
+        cache.put(key, null);
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void latest_findsNewestEntryForThePlace_whateverItsDates() throws Exception {
+        ForecastDiskCache cache = new ForecastDiskCache(dir, Duration.ofMinutes(5));
+        ForecastSeries older = forecast();
+        ForecastSeries newer = new ForecastSeries(-79.38, 43.65, LocalDate.of(2025, 1, 3),
+                new double[]{9}, new double[]{2}, new int[]{0});
+        ForecastKey olderKey = new ForecastKey(-79.38, 43.65, "2025-01-01", 6);
+        cache.put(olderKey, older);
+        cache.put(new ForecastKey(-79.38, 43.65, "2025-01-03", 2), newer);
+        Files.setLastModifiedTime(dir.resolve(olderKey.toFileName() + ".json"),
+                FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        cache.put(new ForecastKey(2.35, 48.86, "2025-01-05", 6), forecast());
+        cache.setTimeToLive(Duration.ofMillis(-1));
+
+        ForecastSeries latest = cache.getLatest(new ForecastKey(-79.38, 43.65, "2025-02-01", 6));
+
+        assertEquals(LocalDate.of(2025, 1, 3), latest.getStartDate());
+        assertNull(cache.getLatest(new ForecastKey(10, 10, "2025-01-01", 6)));
+    }
+
+    @Test
+    void corruptLatestEntry_isAMiss() throws Exception {
+        ForecastDiskCache cache = new ForecastDiskCache(dir, Duration.ofMinutes(5));
+        ForecastKey key = new ForecastKey(-79.38, 43.65, "2025-01-01", 6);
+        cache.put(key, forecast());
+        Path file = dir.resolve(key.toFileName() + ".json");
+        Files.writeString(file, Files.readString(file).replace("2025-01-01", "2025-13-45"));
+
+        assertNull(cache.getLatest(key));
+    }
+}
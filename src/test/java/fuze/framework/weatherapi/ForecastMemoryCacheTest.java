@@ -0,0 +1,139 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastMemoryCacheTest {
+
+    private static ForecastSeries forecast() {
+        return new ForecastSeries(-79.38, 43.65, LocalDate.of(2025, 1, 1),
+                new double[0], new double[0], new int[0]);
+    }
+
+    private static ForecastKey key(String date) {
+        return new ForecastKey(-79.38, 43.65, date, 6);
+    }
+
+    @Test
+    void concurrentRequests_shareOneFetch() {
+        ForecastMemoryCache cache = new ForecastMemoryCache(4, Duration.ofMinutes(5));
+        CompletableFuture<ForecastSeries> upstream = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<ForecastSeries> first = cache.getOrLoad(key("2025-01-01"), () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<ForecastSeries> second = cache.getOrLoad(key("2025-01-01"), () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+
+        ForecastSeries data = forecast();
+        upstream.complete(data);
+
+        assertSame(data, first.join());
+        assertSame(data, second.join());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getCoalescedCount());
+
+        cache.getOrLoad(key("2025-01-01"), () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void staleResult_isPassedOnButNotCached() {
+        ForecastMemoryCache cache = new ForecastMemoryCache(4, Duration.ofMinutes(5));
+        ForecastSeries old = forecast().asStale();
+
+        ForecastSeries first = cache.getOrLoad(key("2025-01-01"),
+                () -> CompletableFuture.completedFuture(old)).join();
+
+        assertSame(old, first);
+        assertNull(cache.get(key("2025-01-01")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsed_isEvicted() {
+        ForecastMemoryCache cache = new ForecastMemoryCache(2, Duration.ofMinutes(5));
+        cache.put(key("2025-01-01"), forecast());
+        cache.put(key("2025-01-02"), forecast());
+        cache.get(key("2025-01-01"));
+        cache.put(key("2025-01-03"), forecast());
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(key("2025-01-01")));
+        assertNull(cache.get(key("2025-01-02")));
+    }
+
+    @Test
+    void failedFetch_isNotCached() {
+        ForecastMemoryCache cache = new ForecastMemoryCache(2, Duration.ofMinutes(5));
+
+        CompletableFuture<ForecastSeries> result = cache.getOrLoad(key("2025-01-01"),
+                () -> CompletableFuture.failedFuture(new RuntimeException("down")));
+
+        assertTrue(result.isCompletedExceptionally());
+        assertNull(cache.get(key("2025-01-01")));
+    }
+
+    @Test
+    void loadAll_onlyAsksForWhatIsMissing_inOneCall() {
+        ForecastMemoryCache cache = new ForecastMemoryCache(8, Duration.ofMinutes(5));
+        ForecastSeries cached = forecast();
+        cache.put(key("2025-01-01"), cached);
+        CompletableFuture<ForecastSeries> running = new CompletableFuture<>();
+        cache.getOrLoad(key("2025-01-02"), () -> running);
+        List<List<Integer>> calls = new ArrayList<>();
+        CompletableFuture<List<ForecastSeries>> upstream = new CompletableFuture<>();
+
+        List<CompletableFuture<ForecastSeries>> all = cache.getOrLoadAll(List.of(
+                key("2025-01-01"), key("2025-01-02"), key("2025-01-03"),
+                key("2025-01-04"), key("2025-01-03")), pending -> {
+                    calls.add(pending);
+                    return upstream;
+                });
+
+        assertEquals(List.of(List.of(2, 3)), calls);
+        assertSame(cached, all.get(0).join());
+        ForecastSeries third = forecast();
+        upstream.complete(List.of(third));
+        assertSame(third, all.get(2).join());
+        assertSame(third, all.get(4).join());
+        // Nothing came back for the 4th, so it isn't cached
+        assertNull(all.get(3).join());
+        assertNull(cache.get(key("2025-01-04")));
+        assertSame(third, cache.get(key("2025-01-03")));
+        assertFalse(all.get(1).isDone());
+        running.complete(cached);
+        assertSame(cached, all.get(1).join());
+    }
+
+    @Test
+    void loadAll_withEverythingCached_neverCallsTheLoader() {
+        ForecastMemoryCache cache = new ForecastMemoryCache(8, Duration.ofMinutes(5));
+        cache.put(key("2025-01-01"), forecast());
+
+        List<CompletableFuture<ForecastSeries>> all = cache.getOrLoadAll(
+                List.of(key("2025-01-01")), pending -> {
+                    throw new AssertionError("Shouldn't load " + pending);
+                });
+
+        assertNotNull(all.get(0).join());
+    }
+}
@@ -0,0 +1,78 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastPrefetcherTest {
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private WeatherProvider original;
+
+    @BeforeEach
+    void useFakeProvider() {
+        original = WeatherFetcher.getProvider();
+        WeatherFetcher.setProvider((lon, lat, start, days) -> {
+            requests.add(lat + "," + lon + " " + start + "+" + days);
+            return CompletableFuture.completedFuture(new ForecastSeries(lon, lat,
+                    LocalDate.parse(start), new double[days + 1],
+                    new double[days + 1], new int[days + 1]));
+        });
+    }
+
+    @AfterEach
+    void restoreProvider() {
+        WeatherFetcher.setProvider(original);
+    }
+
+    @Test
+    void refresh_warmsEveryRegisteredLocation() {
+        ForecastPrefetcher prefetcher = new ForecastPrefetcher(60_000);
+        String today = LocalDate.now().toString();
+        prefetcher.setCurrentLocation(-79.38, 43.65);
+        prefetcher.setCurrentLocation(-123.12, 49.28);
+
+        prefetcher.refreshNow().join();
+        int fetched = requests.size();
+        WeatherFetcher toronto = WeatherFetcher.fetchAsync(today, 14, -79.38, 43.65).join();
+
+        assertEquals(2, fetched);
+        assertEquals(2, requests.size());
+        assertEquals(15, toronto.getForecastSeries().size());
+    }
+
+    @Test
+    void trips_areFetchedForTheirDates_untilTheyAreOver() {
+        ForecastPrefetcher prefetcher = new ForecastPrefetcher(60_000);
+        LocalDate start = LocalDate.now().plusDays(3);
+        prefetcher.addTrip(2.35, 48.86, start, 4);
+        prefetcher.addTrip(2.35, 48.86, LocalDate.now().minusDays(10), 2);
+
+        prefetcher.refreshNow().join();
+
+        assertEquals(List.of("48.86,2.35 " + start + "+4"), requests);
+    }
+
+    @Test
+    void planningTheSameTripAgain_fetchesItOnce() {
+        ForecastPrefetcher prefetcher = new ForecastPrefetcher(60_000);
+        LocalDate start = LocalDate.now().plusDays(2);
+        for (int i = 0; i < 3; i++) {
+            prefetcher.addTrip(2.35, 48.86, start, 3);
+        }
+        prefetcher.addTrip(2.35, 48.86, start, 5);
+
+        prefetcher.refreshNow().join();
+
+        assertEquals(List.of("48.86,2.35 " + start + "+3",
+                "48.86,2.35 " + start + "+5"), requests);
+    }
+}
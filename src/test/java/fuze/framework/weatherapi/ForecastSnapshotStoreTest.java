@@ -0,0 +1,115 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static ForecastSeries forecast(double lon, double lat, int days) {
+        double[] highs = new double[days];
+        double[] lows = new double[days];
+        int[] codes = new int[days];
+        for (int i = 0; i < days; i++) {
+            highs[i] = 10.5 + i;
+            lows[i] = -1.25 + i;
+            codes[i] = 61;
+        }
+        return new ForecastSeries(lon, lat, LocalDate.of(2025, 1, 1), highs, lows, codes);
+    }
+
+    private ForecastSnapshotStore open(int slots) {
+        return new ForecastSnapshotStore(dir.resolve("forecasts.bin"), slots, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void storedDays_comeBackForAnyRangeInside() {
+        ForecastSnapshotStore store = open(4);
+        store.put(new ForecastKey(-79.38, 43.65, "2025-01-01", 6), forecast(-79.38, 43.65, 7));
+        store.flush();
+
+        ForecastSeries all = store.get(new ForecastKey(-79.38, 43.65, "2025-01-01", 6));
+        assertNotNull(all);
+        assertEquals(7, all.size());
+        assertEquals(10.5, all.getHigh(0), 0.001);
+        assertEquals(-1.25, all.getLow(0), 0.001);
+        assertEquals(61, all.getWeatherCode(0));
+
+        ForecastSeries middle = store.get(new ForecastKey(-79.38, 43.65, "2025-01-03", 2));
+        assertEquals(3, middle.size());
+        assertEquals(LocalDate.of(2025, 1, 3), middle.getDate(0));
+        assertEquals(12.5, middle.getHigh(0), 0.001);
+
+        // Not everything is stored, so only getStale gives the part that is
+        assertNull(store.get(new ForecastKey(-79.38, 43.65, "2025-01-05", 6)));
+        assertEquals(3, store.getStale(new ForecastKey(-79.38, 43.65, "2025-01-05", 6)).size());
+    }
+
+    @Test
+    void reopenedFile_keepsForecasts() {
+        ForecastSnapshotStore store = open(4);
+        store.put(new ForecastKey(2.35, 48.86, "2025-01-01", 6), forecast(2.35, 48.86, 7));
+        store.close();
+
+        ForecastSnapshotStore again = open(4);
+        assertTrue(again.isOpen());
+        assertEquals(1, again.size());
+        ForecastSeries latest = again.getLatest(new ForecastKey(2.35, 48.86, null, 0));
+        assertNotNull(latest);
+        assertEquals(7, latest.size());
+        assertEquals(LocalDate.of(2025, 1, 1), latest.getStartDate());
+    }
+
+    @Test
+    void fileInUse_isNotOpenedTwice() {
+        ForecastSnapshotStore first = open(4);
+        first.put(new ForecastKey(2.35, 48.86, "2025-01-01", 6), forecast(2.35, 48.86, 7));
+        first.flush();
+
+        ForecastSnapshotStore second = open(4);
+        assertTrue(first.isOpen());
+        assertFalse(second.isOpen());
+        // It can't write over the first one's slots either
+        second.put(new ForecastKey(-79.38, 43.65, "2025-01-01", 6), forecast(-79.38, 43.65, 7));
+        assertNull(second.getLatest(new ForecastKey(2.35, 48.86, null, 0)));
+
+        first.close();
+        assertFalse(first.isOpen());
+        assertTrue(open(4).isOpen());
+    }
+
+    @Test
+    void full_evictsLeastRecentlyWritten() {
+        ForecastSnapshotStore store = open(2);
+        store.put(new ForecastKey(1, 1, "2025-01-01", 0), forecast(1, 1, 1));
+        store.put(new ForecastKey(2, 2, "2025-01-01", 0), forecast(2, 2, 1));
+        store.put(new ForecastKey(3, 3, "2025-01-01", 0), forecast(3, 3, 1));
+        store.flush();
+
+        assertEquals(2, store.size());
+        assertNull(store.getStale(new ForecastKey(1, 1, "2025-01-01", 0)));
+        assertNotNull(store.get(new ForecastKey(2, 2, "2025-01-01", 0)));
+        assertNotNull(store.get(new ForecastKey(3, 3, "2025-01-01", 0)));
+    }
+
+    @Test
+    void expired_onlyComesBackStale() {
+        ForecastSnapshotStore store = open(4);
+        ForecastKey key = new ForecastKey(-79.38, 43.65, "2025-01-01", 0);
+        store.put(key, forecast(-79.38, 43.65, 1));
+        store.flush();
+        store.setTimeToLive(Duration.ofMinutes(-2));
+
+        assertNull(store.get(key));
+        assertNotNull(store.getStale(key));
+    }
+}
@@ -0,0 +1,116 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalWeatherProviderTest {
+
+    private final List<String> requests = new ArrayList<>();
+
+    /**
+     * Every day's high is its day of the month, so merged days are easy to
+     * check.
+     */
+    private final WeatherProvider api = (lon, lat, start, days) -> {
+        requests.add(start + "+" + days);
+        LocalDate from = LocalDate.parse(start);
+        double[] highs = new double[days + 1];
+        for (int i = 0; i <= days; i++) {
+            highs[i] = from.plusDays(i).getDayOfMonth();
+        }
+        return CompletableFuture.completedFuture(new ForecastSeries(lon, lat, from,
+                highs, new double[days + 1], new int[days + 1]));
+    };
+
+    @Test
+    void longerWindow_onlyFetchesTheNewDays() {
+        IncrementalWeatherProvider provider =
+                new IncrementalWeatherProvider(api, Duration.ofMinutes(5));
+
+        provider.fetch(-79.38, 43.65, "2025-03-01", 6).join();
+        ForecastSeries twoWeeks = provider.fetch(-79.38, 43.65, "2025-03-01", 14).join();
+
+        assertEquals(List.of("2025-03-01+6", "2025-03-08+7"), requests);
+        assertEquals(15, twoWeeks.size());
+        assertEquals(1, twoWeeks.getHigh(0));
+        assertEquals(15, twoWeeks.getHigh(14));
+    }
+
+    @Test
+    void coveredWindow_isNotFetchedAgain() {
+        IncrementalWeatherProvider provider =
+                new IncrementalWeatherProvider(api, Duration.ofMinutes(5));
+
+        provider.fetch(-79.38, 43.65, "2025-03-01", 14).join();
+        ForecastSeries trip = provider.fetch(-79.38, 43.65, "2025-03-04", 3).join();
+
+        assertEquals(1, requests.size());
+        assertEquals(LocalDate.of(2025, 3, 4), trip.getStartDate());
+        assertEquals(4, trip.size());
+        assertEquals(7, trip.getHigh(3));
+    }
+
+    @Test
+    void earlierStart_fetchesOnlyTheDaysBefore() {
+        IncrementalWeatherProvider provider =
+                new IncrementalWeatherProvider(api, Duration.ofMinutes(5));
+
+        provider.fetch(-79.38, 43.65, "2025-03-05", 6).join();
+        ForecastSeries week = provider.fetch(-79.38, 43.65, "2025-03-02", 6).join();
+
+        assertEquals("2025-03-02+2", requests.get(1));
+        assertEquals(7, week.size());
+        assertEquals(2, week.getHigh(0));
+    }
+
+    @Test
+    void widerWindow_fetchesOnlyTheDaysBeforeAndAfter() {
+        IncrementalWeatherProvider provider =
+                new IncrementalWeatherProvider(api, Duration.ofMinutes(5));
+
+        provider.fetch(-79.38, 43.65, "2025-03-05", 6).join();
+        ForecastSeries wide = provider.fetch(-79.38, 43.65, "2025-03-02", 14).join();
+
+        assertEquals(List.of("2025-03-05+6", "2025-03-02+2", "2025-03-12+4"), requests);
+        assertEquals(15, wide.size());
+        assertEquals(2, wide.getHigh(0));
+        assertEquals(16, wide.getHigh(14));
+    }
+
+    @Test
+    void staleFallback_isPassedOnButNotHeld() {
+        WeatherProvider offline = (lon, lat, start, days) ->
+                api.fetch(lon, lat, start, days).thenApply(ForecastSeries::asStale);
+        IncrementalWeatherProvider provider =
+                new IncrementalWeatherProvider(offline, Duration.ofMinutes(5));
+
+        ForecastSeries first = provider.fetch(-79.38, 43.65, "2025-03-01", 6).join();
+        provider.fetch(-79.38, 43.65, "2025-03-01", 6).join();
+
+        assertTrue(first.isStale());
+        assertEquals(2, requests.size());
+        assertEquals(0, provider.size());
+    }
+
+    @Test
+    void onlyTheMostRecentLocations_areHeld() {
+        IncrementalWeatherProvider provider =
+                new IncrementalWeatherProvider(api, Duration.ofMinutes(5), 2);
+
+        provider.fetch(-79.38, 43.65, "2025-03-01", 6).join();
+        provider.fetch(-73.57, 45.50, "2025-03-01", 6).join();
+        provider.fetch(-123.12, 49.28, "2025-03-01", 6).join();
+        provider.fetch(-79.38, 43.65, "2025-03-01", 6).join();
+
+        assertEquals(2, provider.size());
+        assertEquals(4, requests.size(), "Toronto was dropped and fetched again");
+    }
+}
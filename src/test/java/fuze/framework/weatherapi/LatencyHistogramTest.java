@@ -0,0 +1,45 @@
+package fuze.framework.weatherapi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentiles_areWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getPercentileMillis(0.50), 50 * 0.13);
+        assertEquals(99, histogram.getPercentileMillis(0.99), 99 * 0.13);
+        assertEquals(100, histogram.getMaxMillis(), 0.001);
+        assertEquals(50.5, histogram.getMeanMillis(), 0.001);
+    }
+
+    @Test
+    void hugeAndTinyValues_fit() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3_000);
+        histogram.record(TimeUnit.DAYS.toNanos(30));
+
+        assertEquals(0.003, histogram.getPercentileMillis(0.5), 0.0005);
+        assertEquals(TimeUnit.DAYS.toMillis(30), histogram.getPercentileMillis(1), 1);
+    }
+
+    @Test
+    void reset_forgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000_000);
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMillis(0.99));
+    }
+}
@@ -0,0 +1,57 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenMeteoStubServerTest {
+
+    private OpenMeteoStubServer stub;
+    private APIReader reader;
+
+    @BeforeEach
+    void start() throws Exception {
+        stub = new OpenMeteoStubServer(0, 4, 1);
+        stub.start();
+        reader = new APIReader(stub.getBaseUrl());
+    }
+
+    @AfterEach
+    void stop() {
+        stub.stop();
+    }
+
+    @Test
+    void batch_getsOneDeterministicForecastPerLocation() {
+        double[] lons = {-79.38, 2.35, 151.21};
+        double[] lats = {43.65, 48.86, -33.87};
+
+        List<ForecastSeries> first = reader.readForecastBatch(lons, lats, "2025-07-01", 6).join();
+        List<ForecastSeries> again = reader.readForecastBatch(lons, lats, "2025-07-01", 6).join();
+
+        assertEquals(3, first.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(7, first.get(i).size());
+            assertEquals(LocalDate.of(2025, 7, 1), first.get(i).getStartDate());
+            assertEquals(first.get(i).getHigh(3), again.get(i).getHigh(3));
+            assertTrue(first.get(i).getLow(3) < first.get(i).getHigh(3));
+        }
+        // Sydney's July is winter, Toronto's is summer
+        assertTrue(first.get(2).getHigh(0) < first.get(0).getHigh(0));
+        assertEquals(2, stub.getRequestCount());
+    }
+
+    @Test
+    void injectedErrors_giveNoForecast() {
+        stub.setErrorRate(1);
+
+        assertNull(reader.readForecastAsync(-79.38, 43.65, "2025-07-01", 6).join());
+        assertEquals(1, stub.getInjectedErrorCount());
+    }
+}
@@ -0,0 +1,75 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientWeatherProviderTest {
+
+    @TempDir
+    Path dir;
+
+    private static ForecastSeries forecast(double high) {
+        return new ForecastSeries(-79.38, 43.65, LocalDate.of(2025, 1, 1),
+                new double[]{high}, new double[]{-1}, new int[]{3});
+    }
+
+    @Test
+    void failures_serveLastKnownGood_andOpenTheBreaker() {
+        ForecastDiskCache disk = new ForecastDiskCache(dir, Duration.ofMinutes(5));
+        disk.put(new ForecastKey(-79.38, 43.65, "2025-01-01", 0), forecast(7));
+        disk.setTimeToLive(Duration.ofMillis(-1));
+        AtomicInteger calls = new AtomicInteger();
+        WeatherProvider down = (lon, lat, start, days) -> {
+            calls.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("timed out"));
+        };
+        ResilientWeatherProvider provider = new ResilientWeatherProvider(
+                down, disk, 2, Duration.ofMinutes(1), false);
+
+        assertEquals(7, provider.fetch(-79.38, 43.65, "2025-01-01", 0).join().getHigh(0));
+        provider.fetch(-79.38, 43.65, "2025-01-01", 0).join();
+        assertTrue(provider.isOpen());
+
+        ForecastSeries whileOpen = provider.fetch(-79.38, 43.65, "2025-01-01", 0).join();
+
+        assertEquals(7, whileOpen.getHigh(0));
+        assertTrue(whileOpen.isStale());
+        assertEquals(2, calls.get());
+        assertEquals(3, provider.getStaleCount());
+    }
+
+    @Test
+    void slowRequest_isHedged() throws Exception {
+        ForecastDiskCache disk = new ForecastDiskCache(dir, Duration.ofMinutes(5));
+        AtomicInteger calls = new AtomicInteger();
+        WeatherProvider provider = (lon, lat, start, days) -> {
+            // The 21st request hangs, everything else answers at once
+            if (calls.incrementAndGet() == 21) {
+                return new CompletableFuture<>();
+            }
+            return CompletableFuture.completedFuture(forecast(calls.get()));
+        };
+        ResilientWeatherProvider resilient = new ResilientWeatherProvider(
+                provider, disk, 5, Duration.ofMinutes(1), true);
+        for (int i = 0; i < 20; i++) {
+            resilient.fetch(-79.38, 43.65, "2025-01-01", 0).join();
+        }
+
+        ForecastSeries hedged = resilient.fetch(-79.38, 43.65, "2025-01-01", 0)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(22, hedged.getHigh(0));
+        assertEquals(1, resilient.getHedgeCount());
+    }
+}
@@ -0,0 +1,91 @@
+package fuze.framework.weatherapi;
+
+import fuze.entity.weather.ForecastSeries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherFetcherTest {
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> release = new CompletableFuture<>();
+    private WeatherProvider original;
+
+    @BeforeEach
+    void useFakeProvider() {
+        original = WeatherFetcher.getProvider();
+        // Answers only once released, so every fetch below overlaps
+        WeatherFetcher.setProvider((lon, lat, start, days) -> {
+            requests.add(lat + "," + lon);
+            return release.thenApply(done -> new ForecastSeries(lon, lat,
+                    LocalDate.parse(start), new double[days + 1],
+                    new double[days + 1], new int[days + 1]));
+        });
+    }
+
+    @AfterEach
+    void restoreProvider() {
+        release.complete(null);
+        WeatherFetcher.setProvider(original);
+    }
+
+    @Test
+    void locationsInOneGridCell_costOneRequestForTheFirstCaller() {
+        String today = LocalDate.now().toString();
+
+        // All within the default 0.025 degree cell around 43.675,-79.375
+        CompletableFuture<WeatherFetcher> first =
+                WeatherFetcher.fetchAsync(today, 6, -79.38, 43.67);
+        CompletableFuture<WeatherFetcher> nextDoor =
+                WeatherFetcher.fetchAsync(today, 6, -79.37, 43.68);
+        CompletableFuture<List<WeatherFetcher>> batch = WeatherFetcher.fetchBatch(
+                today, 6, new double[]{-79.385, -79.376, -73.57},
+                new double[]{43.665, 43.686, 45.50});
+        release.complete(null);
+
+        // The provider gets real coordinates, not the grid point
+        assertEquals(List.of("43.67,-79.38", "45.5,-73.57"), requests);
+        assertEquals(7, first.join().getForecastSeries().size());
+        assertEquals(7, nextDoor.join().getForecastSeries().size());
+        assertEquals(3, batch.join().size());
+        assertNotNull(batch.join().get(2).getForecastSeries());
+    }
+
+    @Test
+    void failedFetch_isSurfacedOnTheFetcher() {
+        IOException down = new IOException("Network is unreachable");
+        WeatherFetcher.setProvider((lon, lat, start, days) ->
+                CompletableFuture.failedFuture(down));
+        String today = LocalDate.now().toString();
+
+        WeatherFetcher async = WeatherFetcher.fetchAsync(today, 6, -79.38, 43.65).join();
+        WeatherFetcher blocking = new WeatherFetcher(today, 6, -79.38, 43.65);
+        List<WeatherFetcher> batch = WeatherFetcher.fetchBatch(today, 6,
+                new double[]{-79.38}, new double[]{43.65}).join();
+
+        assertNull(async.getForecastSeries());
+        assertSame(down, async.getLoadError());
+        assertSame(down, blocking.getLoadError());
+        assertSame(down, batch.get(0).getLoadError());
+    }
+
+    @Test
+    void noForecast_isNotAnError() {
+        WeatherFetcher.setProvider((lon, lat, start, days) ->
+                CompletableFuture.completedFuture(null));
+
+        WeatherFetcher fetcher = WeatherFetcher.fetchAsync(LocalDate.now().toString(), 6,
+                -79.38, 43.65).join();
+
+        assertNull(fetcher.getForecastSeries());
+        assertNull(fetcher.getLoadError());
+    }
+}
@@ -93,7 +93,7 @@ public class OutfitCreatorTest {
 
         String title = outfit.getTitle();
         assertTrue(title.contains("2025-11-27"));
-        assertTrue(title.contains("-79.4000"));
+        assertTrue(title.contains("Toronto"), "Titles should name the nearby city");
     }
 
     @Test
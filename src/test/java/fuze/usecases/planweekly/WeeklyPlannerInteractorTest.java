@@ -3,6 +3,7 @@ package fuze.usecases.planweekly;
 import fuze.entity.clothing.ClothingArticle;
 import fuze.entity.clothing.Outfit;
 import fuze.entity.clothing.Photo;
+import fuze.entity.plan.WeekPlan;
 import fuze.entity.weather.WeatherDay;
 import fuze.entity.weather.WeatherWeek;
 import fuze.usecases.generateoutfit.OutfitCreator;
@@ -38,10 +39,10 @@ class WeeklyPlannerInteractorTest {
         WeatherDay[] days = buildDays(7);
         WeatherWeek week = new FakeWeatherWeek(days, "Test City");
 
-        interactor.generateOutfitsForWeek(week);
+        WeekPlan plan = interactor.generateOutfitsForWeek(week);
 
-        for (WeatherDay day : days) {
-            assertNotNull(day.getOutfit(), "Outfit should be set for each day");
+        for (int i = 0; i < days.length; i++) {
+            assertNotNull(plan.getOutfit(i), "Outfit should be set for each day");
         }
     }
 
@@ -50,10 +51,11 @@ class WeeklyPlannerInteractorTest {
         WeatherDay[] days = buildDays(7);
         WeatherWeek week = new FakeWeatherWeek(days, "Empty Wardrobe City");
 
-        interactor.generateOutfitsForWeek(week);
+        WeekPlan plan = interactor.generateOutfitsForWeek(week);
 
-        for (WeatherDay day : days) {
-            assertNull(day.getOutfit(), "Outfit should remain null when wardrobe is empty");
+        for (int i = 0; i < days.length; i++) {
+            assertSame(days[i], plan.getWeatherDay(i));
+            assertNull(plan.getOutfit(i), "Outfit should remain null when wardrobe is empty");
         }
     }
 
@@ -62,6 +64,22 @@ class WeeklyPlannerInteractorTest {
         assertDoesNotThrow(() -> interactor.generateOutfitsForWeek(null));
     }
 
+    @Test
+    void sameWeek_canBePlannedTwiceWithoutSharingOutfits() {
+        addBasicWardrobe();
+        WeatherDay[] days = buildDays(7);
+        WeatherWeek week = new FakeWeatherWeek(days, "Shared City");
+
+        WeekPlan first = interactor.generateOutfitsForWeek(week);
+        WeekPlan second = new WeeklyPlannerInteractor(new FakeWardrobeRepository(),
+                new OutfitCreator()).generateOutfitsForWeek(week);
+
+        assertEquals("Shared City", first.getLocation());
+        assertSame(first.getWeatherDay(0), second.getWeatherDay(0));
+        assertNotNull(first.getOutfit(0));
+        assertNull(second.getOutfit(0), "The other plan's outfits shouldn't leak in");
+    }
+
     @Test
     void nullDays_areSkipped() {
         addBasicWardrobe();
@@ -70,13 +88,13 @@ class WeeklyPlannerInteractorTest {
         days[5] = null;
         WeatherWeek week = new FakeWeatherWeek(days, "Partial City");
 
-        interactor.generateOutfitsForWeek(week);
+        WeekPlan plan = interactor.generateOutfitsForWeek(week);
 
-        assertNull(days[2], "Null days should remain null");
-        assertNull(days[5], "Null days should remain null");
+        assertNull(plan.getDay(2), "Null days should stay empty slots");
+        assertNull(plan.getDay(5), "Null days should stay empty slots");
         for (int i = 0; i < days.length; i++) {
             if (days[i] != null) {
-                assertNotNull(days[i].getOutfit(), "Outfit should be set for non-null days");
+                assertNotNull(plan.getOutfit(i), "Outfit should be set for non-null days");
             }
         }
     }
@@ -89,12 +107,12 @@ class WeeklyPlannerInteractorTest {
         WeatherDay[] days = buildDays(2);
         WeatherWeek week = new FakeWeatherWeek(days, "Repeat City");
 
-        interactor.generateOutfitsForWeek(week);
+        WeekPlan plan = interactor.generateOutfitsForWeek(week);
 
-        assertNotNull(days[0].getOutfit());
-        assertNotNull(days[1].getOutfit());
-        assertEquals(days[0].getOutfit().getItems().get("top").getName(),
-                days[1].getOutfit().getItems().get("top").getName(),
+        assertNotNull(plan.getOutfit(0));
+        assertNotNull(plan.getOutfit(1));
+        assertEquals(plan.getOutfit(0).getItems().get("top").getName(),
+                plan.getOutfit(1).getItems().get("top").getName(),
                 "When only one outfit exists, it can repeat after fallback");
     }
 
@@ -108,9 +126,9 @@ class WeeklyPlannerInteractorTest {
         };
         WeatherWeek week = new FakeWeatherWeek(days, "Top Only City");
 
-        interactor.generateOutfitsForWeek(week);
+        WeekPlan plan = interactor.generateOutfitsForWeek(week);
 
-        assertNull(days[0].getOutfit(), "Outfit should stay null when bottoms are missing");
+        assertNull(plan.getOutfit(0), "Outfit should stay null when bottoms are missing");
     }
 
     @Test
@@ -127,10 +145,10 @@ class WeeklyPlannerInteractorTest {
         };
         WeatherWeek week = new FakeWeatherWeek(days, "Fallback City");
 
-        interactor.generateOutfitsForWeek(week);
+        WeekPlan plan = interactor.generateOutfitsForWeek(week);
 
-        Outfit first = days[0].getOutfit();
-        Outfit second = days[1].getOutfit();
+        Outfit first = plan.getOutfit(0);
+        Outfit second = plan.getOutfit(1);
         assertNotNull(first);
         assertNotNull(second);
         assertEquals("TopPrimary", first.getItems().get("top").getName());
@@ -157,10 +175,10 @@ class WeeklyPlannerInteractorTest {
         };
         WeatherWeek week = new FakeWeatherWeek(days, "Accessory City");
 
-        interactor.generateOutfitsForWeek(week);
+        WeekPlan plan = interactor.generateOutfitsForWeek(week);
 
-        Outfit coldDay = days[1].getOutfit();
-        assertNotNull(days[0].getOutfit());
+        Outfit coldDay = plan.getOutfit(1);
+        assertNotNull(plan.getOutfit(0));
         assertNotNull(coldDay);
         assertTrue(coldDay.getItems().containsKey("accessory"),
                 "Cold weather should include an accessory");
@@ -177,9 +195,9 @@ class WeeklyPlannerInteractorTest {
         WeatherDay[] days = buildDays(1);
         WeatherWeek week = new FakeWeatherWeek(days, "Null City");
 
-        customInteractor.generateOutfitsForWeek(week);
+        WeekPlan plan = customInteractor.generateOutfitsForWeek(week);
 
-        assertNull(days[0].getOutfit(), "Outfit should stay null when creator returns null");
+        assertNull(plan.getOutfit(0), "Outfit should stay null when creator returns null");
     }
 
     @Test
@@ -202,10 +220,10 @@ class WeeklyPlannerInteractorTest {
         WeatherDay[] days = buildDays(2);
         WeatherWeek week = new FakeWeatherWeek(days, "Retry City");
 
-        customInteractor.generateOutfitsForWeek(week);
+        WeekPlan plan = customInteractor.generateOutfitsForWeek(week);
 
-        assertSame(first, days[0].getOutfit(), "First day uses initial outfit");
-        assertSame(alternate, days[1].getOutfit(), "Second day should switch to alternate outfit");
+        assertSame(first, plan.getOutfit(0), "First day uses initial outfit");
+        assertSame(alternate, plan.getOutfit(1), "Second day should switch to alternate outfit");
     }
 
     @Test
@@ -226,9 +244,9 @@ class WeeklyPlannerInteractorTest {
         WeatherDay[] days = buildDays(2);
         WeatherWeek week = new FakeWeatherWeek(days, "Repeat City");
 
-        customInteractor.generateOutfitsForWeek(week);
+        WeekPlan plan = customInteractor.generateOutfitsForWeek(week);
 
-        assertSame(repeat, days[1].getOutfit(), "When all retries fail, interactor reuses the first outfit");
+        assertSame(repeat, plan.getOutfit(1), "When all retries fail, interactor reuses the first outfit");
     }
 
     private void addBasicWardrobe() {
@@ -3,8 +3,9 @@ package fuze.usecases.planweekly;
 import fuze.entity.clothing.ClothingArticle;
 import fuze.entity.clothing.Outfit;
 import fuze.entity.clothing.Photo;
+import fuze.entity.plan.DayPlan;
+import fuze.entity.plan.WeekPlan;
 import fuze.entity.weather.WeatherDay;
-import fuze.entity.weather.WeatherWeek;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -15,9 +16,8 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Field;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,13 +53,11 @@ class WeeklyPlannerTest {
     void rendersOutfitDetailsAndImages() throws Exception {
         planner = new WeeklyPlanner();
 
-        WeatherDay[] days = new WeatherDay[]{
+        WeekPlan plan = new WeekPlan("Testville", List.of(
                 makeDayWithOutfit("2024-02-01", "Cozy Day", true),
-                makeDayWithOutfit("2024-02-02", "Missing Image", false)
-        };
-        WeatherWeek week = new StubWeatherWeek(days, "Testville");
+                makeDayWithOutfit("2024-02-02", "Missing Image", false)));
 
-        planner.setWeatherWeek(week);
+        planner.setWeekPlan(plan);
 
         JPanel daysPanel = getField(planner, "daysPanel", JPanel.class);
         JPanel firstCard = (JPanel) daysPanel.getComponent(0);
@@ -89,15 +87,14 @@ class WeeklyPlannerTest {
         assertTrue(tempLabel.getText().contains("10°"), "Average temperature should be rounded and shown");
     }
 
-    private WeatherDay makeDayWithOutfit(String date, String outfitTitle, boolean includePhoto) throws Exception {
+    private DayPlan makeDayWithOutfit(String date, String outfitTitle, boolean includePhoto) throws Exception {
         WeatherDay day = new WeatherDay(0, 12.0, 8.0, new double[]{1.0, 1.0}, date);
         Map<String, ClothingArticle> items = new HashMap<>();
         Photo photo = includePhoto ? photoWithBytes() : new Photo("missing.jpg");
         items.put("top", new ClothingArticle("Topper", "top", 2, false, photo));
         items.put("bottom", new ClothingArticle("Pants", "pant", 2, false, photo));
         Outfit outfit = new Outfit(items, outfitTitle, 4, false);
-        day.setOutfit(outfit);
-        return day;
+        return new DayPlan(day, outfit);
     }
 
     private Photo photoWithBytes() throws Exception {
@@ -120,40 +117,4 @@ class WeeklyPlannerTest {
             throw new AssertionError("Failed to access field " + name, e);
         }
     }
-
-    private static class StubWeatherWeek extends WeatherWeek {
-        private final WeatherDay[] days;
-        private final String location;
-
-        StubWeatherWeek(WeatherDay[] days, String location) {
-            super(buildQueue(days), location);
-            this.days = days != null ? days : new WeatherDay[0];
-            this.location = location;
-        }
-
-        @Override
-        public WeatherDay getWeatherDay(int index) {
-            if (index < 0 || index >= days.length) {
-                return null;
-            }
-            return days[index];
-        }
-
-        @Override
-        public String getDefaultLocation() {
-            return location;
-        }
-
-        private static Queue<WeatherDay> buildQueue(WeatherDay[] days) {
-            Queue<WeatherDay> queue = new LinkedList<>();
-            if (days != null) {
-                for (WeatherDay day : days) {
-                    if (day != null) {
-                        queue.add(day);
-                    }
-                }
-            }
-            return queue;
-        }
-    }
 }
@@ -2,6 +2,7 @@ package fuze.usecases.trippacking;
 
 import fuze.entity.clothing.ClothingArticle;
 import fuze.entity.clothing.Outfit;
+import fuze.entity.plan.DayPlan;
 import fuze.entity.weather.WeatherDay;
 import fuze.entity.weather.WeatherTrip;
 import fuze.entity.weather.WeatherWeek;
@@ -62,30 +63,33 @@ class TripPlannerInteractorTest {
             OutfitCreator creator = new ConstantOutfitCreator(outfitWithTopBottom("TopX", "BottomX"));
             TripPlannerInteractor interactor = new TripPlannerInteractor(repo, creator);
 
-            List<WeatherDay> result = interactor.generateTripPlan("Loc", LocalDate.of(2025, 1, 1), 1);
+            List<DayPlan> result = interactor.generateTripPlan("Loc", LocalDate.of(2025, 1, 1), 1);
 
             assertEquals(1, result.size());
-            assertSame(day, result.get(0));
+            assertSame(day, result.get(0).getDay());
             assertNotNull(result.get(0).getOutfit());
         }
     }
 
     @Test
-    void generateTripPlan_fallsBackToWeatherWeekWhenTripReturnsNull() {
-        WeatherDay weekDay = new WeatherDay(0, 25.0, 15.0, new double[]{3.0, 4.0}, "2025-01-01");
+    void generateTripPlan_skipsDaysWithNoWeatherInsteadOfFetchingAWeek() {
+        WeatherDay day = new WeatherDay(0, 20.0, 10.0, new double[]{1.0, 2.0}, "2025-01-01");
         try (MockedConstruction<WeatherTrip> ignored =
-                     mockConstruction(WeatherTrip.class, (mock, context) -> when(mock.getWeatherDay(0)).thenReturn(null));
-             MockedConstruction<WeatherWeek> ignored1 =
-                     mockConstruction(WeatherWeek.class, (mock, context) -> when(mock.getWeatherDay(0)).thenReturn(weekDay))) {
+                     mockConstruction(WeatherTrip.class, (mock, context) -> {
+                         when(mock.getWeatherDay(0)).thenReturn(null);
+                         when(mock.getWeatherDay(1)).thenReturn(day);
+                     });
+             MockedConstruction<WeatherWeek> weeks = mockConstruction(WeatherWeek.class)) {
 
             TripPlannerInteractor interactor =
                     new TripPlannerInteractor(null, new ConstantOutfitCreator(outfitWithTopBottom("A", "B")));
 
-            List<WeatherDay> result = interactor.generateTripPlan("Loc", LocalDate.of(2025, 1, 1), 1);
+            List<DayPlan> result = interactor.generateTripPlan("Loc", LocalDate.of(2025, 1, 1), 2);
 
             assertEquals(1, result.size());
-            assertSame(weekDay, result.get(0));
-            assertNull(result.get(0).getOutfit());
+            assertSame(day, result.get(0).getDay());
+            assertNotNull(result.get(0).getOutfit());
+            assertTrue(weeks.constructed().isEmpty());
         }
     }
 
@@ -94,7 +98,7 @@ class TripPlannerInteractorTest {
         try (MockedConstruction<WeatherTrip> ignored = mockConstruction(WeatherTrip.class)) {
             TripPlannerInteractor interactor =
                     new TripPlannerInteractor(null, new ConstantOutfitCreator(outfitWithTopBottom("A", "B")));
-            List<WeatherDay> result = interactor.generateTripPlan("Loc", LocalDate.of(2025, 1, 1), 0);
+            List<DayPlan> result = interactor.generateTripPlan("Loc", LocalDate.of(2025, 1, 1), 0);
             assertTrue(result.isEmpty());
         }
     }